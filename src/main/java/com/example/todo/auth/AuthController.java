@@ -55,7 +55,8 @@ public class AuthController {
     /**
      * Handles incoming requests for the /api/v1/auth/login endpoint which
      * authenticates the user making the request and sends back the user data
-     * with a JWT token.
+     * with a JWT token. The stored password hash is upgraded to the current
+     * encoder and work factor if needed.
      * @param payload The payload for the incoming request (email and password).
      * @return The User data and a JWT token for the user making the request.
      * @throws BadRequestException If an account with the given email from the
@@ -75,6 +76,7 @@ public class AuthController {
                 signedInUser.getPassword())) {
             throw new AuthorisationException("Incorrect password");
         }
+        authService.rehashPasswordIfNeeded(signedInUser, payload.password());
         String token = authService.generateUserToken(signedInUser);
         return ResponseEntity.ok(new AuthResponse(
                 signedInUser.getId(),
@@ -1,11 +1,13 @@
 package com.example.todo.auth;
 
 import com.example.todo.config.JwtUtils;
+import com.example.todo.task.TaskService;
 import com.example.todo.user.User;
 import com.example.todo.user.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
 
@@ -15,15 +17,21 @@ import java.util.Optional;
 @Service
 public class AuthService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtils jwtUtils;
+    private final TaskService taskService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public AuthService(UserRepository userRepository,
-            PasswordEncoder passwordEncoder, JwtUtils jwtUtils) {
+            PasswordHasher passwordHasher, JwtUtils jwtUtils,
+            TaskService taskService,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtUtils = jwtUtils;
+        this.taskService = taskService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -37,16 +45,25 @@ public class AuthService {
     }
 
     /**
-     * Creates a user in the database with the data from the given payload.
+     * Creates a user in the database with the data from the given payload,
+     * along with their task list version. The password is hashed before the
+     * transaction starts, so no connection is held while it is hashed.
      * @param payload The name, email and password for the new user.
      * @return A User object with the new user's data.
+     * @throws com.example.todo.exceptions.ServiceUnavailableException If the
+     * password hashing queue is full.
      */
     public User createUser(RegistrationPayload payload) {
         User user = new User();
         user.setName(payload.name().trim());
         user.setEmail(payload.email().trim());
-        user.setPassword(passwordEncoder.encode(payload.password().trim()));
-        return userRepository.save(user);
+        user.setPassword(passwordHasher.encode(payload.password().trim()));
+        return transactionTemplate.execute(status -> {
+            User savedUser = userRepository.save(user);
+            // A new user is persisted as is, so it has its ID now
+            taskService.createTaskListVersion(user.getId());
+            return savedUser;
+        });
     }
 
     /**
@@ -65,8 +82,27 @@ public class AuthService {
      * @param encryptedPassword The encrypted password.
      * @return `true` if the raw password matches the encrypted password.
      * `false` otherwise.
+     * @throws com.example.todo.exceptions.ServiceUnavailableException If the
+     * password hashing queue is full.
      */
     public boolean isPasswordValid(String password, String encryptedPassword) {
-        return passwordEncoder.matches(password, encryptedPassword);
+        return passwordHasher.matches(password, encryptedPassword);
+    }
+
+    /**
+     * Rehashes the user's password with the current encoder and work factor
+     * if their stored hash was made with a different one. This is called
+     * after a successful login, as it's the only time the raw password is
+     * known, so hashes move to a new cost or encoder without password resets.
+     * @param user The user that has just logged in.
+     * @param password The raw password the user logged in with.
+     * @throws com.example.todo.exceptions.ServiceUnavailableException If the
+     * password hashing queue is full.
+     */
+    public void rehashPasswordIfNeeded(User user, String password) {
+        if (passwordHasher.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHasher.encode(password));
+            userRepository.save(user);
+        }
     }
 }
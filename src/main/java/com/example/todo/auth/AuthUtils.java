@@ -2,7 +2,7 @@ package com.example.todo.auth;
 
 import com.example.todo.exceptions.AuthenticationException;
 import com.example.todo.user.User;
-import com.example.todo.user.UserRepository;
+import com.example.todo.user.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,20 +17,32 @@ import java.util.Optional;
  */
 @Component
 public class AuthUtils {
-    private final UserRepository userRepository;
+    private final UserCache userCache;
 
     @Autowired
-    public AuthUtils(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public AuthUtils(UserCache userCache) {
+        this.userCache = userCache;
     }
 
     /**
-     * Gets the user ID from the authentication context of the request.
+     * Gets the user ID from the authentication context of the request. If the
+     * request was authenticated with the user ID in the token, no database
+     * (or cache) lookup is needed.
      * @return The user ID of the user making the request.
      * @throws AuthenticationException If the user making the request doesn't
      * exist in the database.
      */
     public Long getUserIdFromAuth() {
+        Object principal = SecurityContextHolder
+                .getContext()
+                .getAuthentication()
+                .getPrincipal();
+        if (principal instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser.id();
+        }
+        if (principal instanceof User user) {
+            return user.getId();
+        }
         User user = getUserFromAuth().orElseThrow(() -> {
             return new AuthenticationException("Unauthenticated");
         });
@@ -47,6 +59,6 @@ public class AuthUtils {
                 .getAuthentication();
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String email = userDetails.getUsername();
-        return userRepository.findByEmail(email);
+        return userCache.findByEmail(email);
     }
 }
@@ -0,0 +1,185 @@
+package com.example.todo.auth;
+
+import com.example.todo.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hashes and checks passwords on a dedicated, bounded pool of threads so a
+ * burst of registrations or logins can't tie up every request thread with
+ * password hashing.
+ * <p>
+ * Only a fixed number of hashes run at once and a limited number can wait in
+ * the queue. When the queue is full, the request fails straight away with a
+ * 503 and a Retry-After header instead of waiting. The queue depth, active
+ * hashes, hash latency and rejections are published as metrics.
+ */
+@Component
+public class PasswordHasher {
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry, Environment environment) {
+        this.passwordEncoder = passwordEncoder;
+        int threads = environment.getProperty(
+                "auth.hashing.threads",
+                Integer.class,
+                Runtime.getRuntime().availableProcessors()
+        );
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(environment.getProperty(
+                        "auth.hashing.queue-capacity",
+                        Integer.class,
+                        DEFAULT_QUEUE_CAPACITY
+                )),
+                new CustomizableThreadFactory("password-hasher-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.timeoutMillis = environment.getProperty(
+                "auth.hashing.timeout-ms",
+                Long.class,
+                DEFAULT_TIMEOUT_MILLIS
+        );
+        this.retryAfterSeconds = environment.getProperty(
+                "auth.hashing.retry-after-seconds",
+                Long.class,
+                DEFAULT_RETRY_AFTER_SECONDS
+        );
+
+        Gauge.builder("auth.hashing.queue.size", executor,
+                        pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("auth.hashing.active", executor,
+                        ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes running")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.hashing.duration")
+                .tag("operation", "encode")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.hashing.duration")
+                .tag("operation", "matches")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Password hashes rejected because the queue "
+                        + "was full or they timed out")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes the given raw password on the password hashing pool.
+     * @param rawPassword The raw password.
+     * @return The hashed password.
+     * @throws ServiceUnavailableException If the hashing queue is full or the
+     * hash timed out.
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer.wrap(
+                (Callable<String>) () -> passwordEncoder.encode(rawPassword)
+        ));
+    }
+
+    /**
+     * Checks if the given raw password matches the hashed password on the
+     * password hashing pool.
+     * @param rawPassword The raw password.
+     * @param encodedPassword The hashed password.
+     * @return `true` if the password matches, `false` if not.
+     * @throws ServiceUnavailableException If the hashing queue is full or the
+     * check timed out.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer.wrap((Callable<Boolean>) () ->
+                passwordEncoder.matches(rawPassword, encodedPassword)
+        ));
+    }
+
+    /**
+     * Checks if the given hashed password should be hashed again because it
+     * wasn't made by the current encoder with the current work factor. This
+     * only reads the hash, so it doesn't use the pool.
+     * @param encodedPassword The hashed password.
+     * @return `true` if the password should be rehashed, `false` if not.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     * @param task The hashing task.
+     * @return The result of the task.
+     * @throws ServiceUnavailableException If the queue is full or the task
+     * didn't finish in time.
+     */
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException(
+                    "Too many sign in requests, try again later",
+                    retryAfterSeconds
+            );
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceUnavailableException(
+                    "Too many sign in requests, try again later",
+                    retryAfterSeconds
+            );
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -1,16 +1,16 @@
 package com.example.todo.config;
 
-import com.example.todo.user.UserRepository;
+import com.example.todo.user.UserCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -19,21 +19,24 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  */
 @Configuration
 public class ApplicationConfig {
-    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final Environment environment;
 
     @Autowired
-    public ApplicationConfig(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public ApplicationConfig(UserCache userCache, Environment environment) {
+        this.userCache = userCache;
+        this.environment = environment;
     }
 
     /**
      * Implementation of UserDetailsService and the loadUserByUsername method.
-     * Searches the User Repository for a user with the email (username)
+     * Searches the user cache (falling back to the User Repository) for a
+     * user with the email (username)
      * @return A UserDetailsService object for the user making the request.
      */
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByEmail(username)
+        return username -> userCache.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(
                         "User not found"
                 ));
@@ -65,12 +68,14 @@ public class ApplicationConfig {
     }
 
     /**
-     * Implementing a Password Encoder for this application with the BCrypt
-     * password encoder;
+     * Implementing a Password Encoder for this application with the encoder
+     * selected for this deployment (BCrypt by default), with its work factor
+     * calibrated to the target hash time on this hardware.
      * @return A PasswordEncoder object.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new PasswordEncoderCalibrator(environment)
+                .createPasswordEncoder();
     }
 }
@@ -0,0 +1,245 @@
+package com.example.todo.config;
+
+import com.example.todo.exceptions.CustomErrorResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filter which rate limits the login and register endpoints by client IP
+ * and by the email in the request body, before the request reaches the JWT
+ * filter, the database or the password encoder. Requests over the limit get
+ * a 429 with a Retry-After header.
+ * <p>
+ * The client IP is the remote address, so behind a proxy
+ * server.forward-headers-strategy has to be set for it to be the real client.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/v1/auth/login",
+            "/api/v1/auth/register"
+    );
+    // Login and registration payloads are tiny, anything bigger is rejected
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final boolean enabled;
+    private final RateLimiter ipLimiter;
+    private final RateLimiter emailLimiter;
+    private final ObjectMapper objectMapper;
+    private final Counter ipRejections;
+    private final Counter emailRejections;
+
+    @Autowired
+    public AuthRateLimitFilter(Environment environment,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("auth.rate-limit.enabled",
+                Boolean.class, true);
+        long maxKeys = environment.getProperty("auth.rate-limit.max-keys",
+                Long.class, 100_000L);
+        this.ipLimiter = new RateLimiter(
+                environment.getProperty(
+                        "auth.rate-limit.ip.requests-per-minute",
+                        Long.class, 30L),
+                environment.getProperty("auth.rate-limit.ip.burst",
+                        Integer.class, 10),
+                maxKeys
+        );
+        this.emailLimiter = new RateLimiter(
+                environment.getProperty(
+                        "auth.rate-limit.email.requests-per-minute",
+                        Long.class, 10L),
+                environment.getProperty("auth.rate-limit.email.burst",
+                        Integer.class, 5),
+                maxKeys
+        );
+        this.objectMapper = objectMapper;
+        this.ipRejections = Counter.builder("auth.rate-limit.rejected")
+                .tag("key", "ip")
+                .register(meterRegistry);
+        this.emailRejections = Counter.builder("auth.rate-limit.rejected")
+                .tag("key", "email")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Only POST requests to the auth endpoints are rate limited.
+     * @param request The incoming request.
+     * @return `true` if the request isn't rate limited.
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || !LIMITED_PATHS.contains(request.getRequestURI()
+                        .substring(request.getContextPath().length()));
+    }
+
+    /**
+     * Takes a token for the client IP and then the email in the request body,
+     * and rejects the request if either is over its limit.
+     * @param request The incoming request.
+     * @param response The response from the request.
+     * @param filterChain The filter chain for the request.
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long wait = ipLimiter.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            ipRejections.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, wait,
+                    "Too many requests, try again later");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            reject(response, HttpStatus.PAYLOAD_TOO_LARGE, 0,
+                    "Request body is too large");
+            return;
+        }
+        String email = extractEmail(body);
+        if (email != null) {
+            wait = emailLimiter.tryAcquire(email);
+            if (wait > 0) {
+                emailRejections.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, wait,
+                        "Too many attempts for this account, try again later");
+                return;
+            }
+        }
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    /**
+     * Gets the email from a JSON request body.
+     * @param body The request body.
+     * @return The trimmed, lower case email, or null if there isn't one (the
+     * controller rejects the request in that case).
+     */
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual()
+                    ? email.asText().trim().toLowerCase(Locale.ROOT)
+                    : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sends an error response from the filter.
+     * @param response The response.
+     * @param status The status of the response.
+     * @param waitNanos How long until the client can retry (0 for no
+     * Retry-After header).
+     * @param message The error message.
+     */
+    private void reject(HttpServletResponse response, HttpStatus status,
+            long waitNanos, String message) throws IOException {
+        response.setStatus(status.value());
+        if (waitNanos > 0) {
+            long seconds = Math.max(1, (waitNanos
+                    + TimeUnit.SECONDS.toNanos(1) - 1)
+                    / TimeUnit.SECONDS.toNanos(1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new CustomErrorResponse(status.value(), message));
+    }
+
+    /**
+     * A request which replays a body that has already been read.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    return input.read(bytes, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(
+                    getInputStream(),
+                    getCharacterEncoding() == null
+                            ? StandardCharsets.UTF_8
+                            : Charset.forName(getCharacterEncoding())
+            ));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
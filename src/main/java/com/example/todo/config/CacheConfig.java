@@ -0,0 +1,115 @@
+package com.example.todo.config;
+
+import com.example.todo.task.Task;
+import com.example.todo.user.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the in-process caches. The Hibernate second-level cache
+ * regions for tasks and users and the per-user task list cache are Caffeine
+ * caches in the same JCache CacheManager, so they are all bounded by size and
+ * TTL and their statistics are published as cache metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String USER_TASKS_CACHE = "userTasks";
+    private static final long DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final Environment environment;
+
+    @Autowired
+    public CacheConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Creates the caches when the JCache CacheManager is created. The
+     * entity caches are named after the entity classes, which are the
+     * Hibernate region names.
+     * @return A JCacheManagerCustomizer which creates the caches.
+     */
+    @Bean
+    public JCacheManagerCustomizer cacheCreator() {
+        return cacheManager -> {
+            createCache(cacheManager, Task.class.getName(),
+                    "hibernate-cache.task");
+            createCache(cacheManager, User.class.getName(),
+                    "hibernate-cache.user");
+            createCache(cacheManager, USER_TASKS_CACHE, "task.list-cache");
+        };
+    }
+
+    /**
+     * Defers cache puts and evictions made in a transaction until it
+     * commits, so an evicted task list isn't cached again with data from
+     * before the commit.
+     * @return A CacheManagerCustomizer for the Spring cache manager.
+     */
+    @Bean
+    public CacheManagerCustomizer<JCacheCacheManager> transactionAwareCaches() {
+        return cacheManager -> cacheManager.setTransactionAware(true);
+    }
+
+    /**
+     * Makes Hibernate use the same JCache CacheManager for the second-level
+     * cache instead of creating its own.
+     * @param cacheManager The JCache CacheManager.
+     * @return A HibernatePropertiesCustomizer which sets the cache manager.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(
+            CacheManager cacheManager) {
+        return properties -> properties.put(
+                ConfigSettings.CACHE_MANAGER,
+                cacheManager
+        );
+    }
+
+    /**
+     * Creates a cache (if it doesn't already exist) with the maximum size and
+     * TTL from the properties with the given prefix.
+     * @param cacheManager The JCache CacheManager.
+     * @param name The name of the cache.
+     * @param prefix The prefix of the max-size and ttl-seconds properties.
+     */
+    private void createCache(CacheManager cacheManager, String name,
+            String prefix) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration =
+                new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(environment.getProperty(
+                prefix + ".max-size",
+                Long.class,
+                DEFAULT_MAX_SIZE
+        )));
+        configuration.setExpireAfterWrite(OptionalLong.of(
+                TimeUnit.SECONDS.toNanos(environment.getProperty(
+                        prefix + ".ttl-seconds",
+                        Long.class,
+                        DEFAULT_TTL_SECONDS
+                ))
+        ));
+        // Values are cached by reference, they aren't copied on every read
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
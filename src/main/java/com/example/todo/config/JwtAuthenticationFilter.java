@@ -1,20 +1,29 @@
 package com.example.todo.config;
 
+import com.example.todo.auth.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * A JWT Authentication Filter to filter incoming requests and authenticate
@@ -25,12 +34,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final boolean statelessPrincipal;
+    private final Timer claimsResolutionTimer;
+    private final Timer userDetailsResolutionTimer;
+    // Keeps the authentication for the async dispatch of a streamed response
+    private final SecurityContextRepository securityContextRepository =
+            new RequestAttributeSecurityContextRepository();
 
     @Autowired
     public JwtAuthenticationFilter(JwtUtils jwtUtils,
-                                   UserDetailsService userDetailsService) {
+                                   UserDetailsService userDetailsService,
+                                   Environment environment,
+                                   MeterRegistry meterRegistry) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.statelessPrincipal = environment.getProperty(
+                "jwt.stateless-principal.enabled",
+                Boolean.class,
+                true
+        );
+        this.claimsResolutionTimer = Timer.builder("auth.user.resolve")
+                .tag("source", "claims")
+                .register(meterRegistry);
+        this.userDetailsResolutionTimer = Timer.builder("auth.user.resolve")
+                .tag("source", "user-details-service")
+                .register(meterRegistry);
     }
 
     /**
@@ -52,24 +80,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         final String jwt = authHeader.substring(7);
-        final String userEmail = jwtUtils.extractUsername(jwt);
+        // The token is parsed and verified (signature and expiry) only once
+        final Optional<Claims> claims = jwtUtils.verifyToken(jwt);
+        final String userEmail = claims.map(Claims::getSubject).orElse(null);
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService
-                    .loadUserByUsername(userEmail);
-            if (jwtUtils.isTokenValid(jwt, userDetails)) {
-                setRequestAuthentication(userDetails, request);
+            UserDetails userDetails = loadUserDetails(claims.get());
+            if (userEmail.equals(userDetails.getUsername())) {
+                setRequestAuthentication(userDetails, request, response);
             }
         }
         filterChain.doFilter(request, response);
     }
 
     /**
-     * Updates the authentication details for the security context holder.
+     * Gets the user details for the user making the request. In stateless
+     * principal mode the user details are built from the token claims
+     * without going to the UserDetailsService.
+     * @param claims The claims from the verified token.
+     * @return The user details of the user making the request.
+     */
+    private UserDetails loadUserDetails(Claims claims) {
+        if (statelessPrincipal) {
+            Optional<AuthenticatedUser> principal = claimsResolutionTimer
+                    .record(() -> jwtUtils.extractPrincipal(claims));
+            if (principal.isPresent()) {
+                return principal.get();
+            }
+        }
+        return userDetailsResolutionTimer.record(() -> this.userDetailsService
+                .loadUserByUsername(claims.getSubject()));
+    }
+
+    /**
+     * Updates the authentication details for the security context holder,
+     * and saves them in the request so an async dispatch of the same request
+     * is authenticated too.
      * @param userDetails The user details of the user making the request.
      * @param request The incoming request.
+     * @param response The response from the request.
      */
     private void setRequestAuthentication(UserDetails userDetails,
-            HttpServletRequest request) {
+            HttpServletRequest request, HttpServletResponse response) {
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                 userDetails,
                 null,
@@ -78,6 +129,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         authToken.setDetails(
                 new WebAuthenticationDetailsSource().buildDetails(request)
         );
-        SecurityContextHolder.getContext().setAuthentication(authToken);
+        SecurityContext context = SecurityContextHolder.getContext();
+        context.setAuthentication(authToken);
+        securityContextRepository.saveContext(context, request, response);
     }
 }
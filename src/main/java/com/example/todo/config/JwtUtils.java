@@ -1,41 +1,101 @@
 package com.example.todo.config;
 
+import com.example.todo.auth.AuthenticatedUser;
+import com.example.todo.user.Role;
+import com.example.todo.user.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MissingClaimException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A service containing methods to generate and validate JWT tokens and to
  * get user information from JWT tokens.
+ * <p>
+ * The signing key and parser are built once on startup and tokens that have
+ * already been verified are kept in a bounded cache (keyed by a hash of the
+ * token) until they expire, so each token is only parsed and verified once.
  */
 @Component
 public class JwtUtils {
-    private final Environment environment;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+    private static final long DEFAULT_TOKEN_CACHE_SIZE = 10_000;
+
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+    private final Cache<String, Claims> verifiedTokens;
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
 
     @Autowired
-    public JwtUtils(Environment environment) {
-        this.environment = environment;
+    public JwtUtils(Environment environment, MeterRegistry meterRegistry) {
+        this.signInKey = createSignInKey(
+                environment.getRequiredProperty("jwt.secret-key")
+        );
+        this.jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty(
+                        "jwt.token-cache.max-size",
+                        Long.class,
+                        DEFAULT_TOKEN_CACHE_SIZE
+                ))
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens,
+                "jwtTokens");
+        // Only cache misses are timed, hits show up in the cache metrics
+        this.validTokenTimer = Timer.builder("jwt.verify")
+                .tag("result", "valid")
+                .register(meterRegistry);
+        this.invalidTokenTimer = Timer.builder("jwt.verify")
+                .tag("result", "invalid")
+                .register(meterRegistry);
     }
 
     /**
-     * Generates a JWT token from the given user details.
+     * Generates a JWT token from the given user details. If the user details
+     * are a User, the user's ID and role are added as claims so requests can
+     * be authenticated from the token alone.
      * @param userDetails The user details of the user making the request.
      * @return A JWT token.
      */
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(ROLE_CLAIM, user.getRole().name());
+        }
+        return generateToken(claims, userDetails);
     }
 
     /**
@@ -53,10 +113,45 @@ public class JwtUtils {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + ONE_WEEK))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of the given token, parsing it at
+     * most once while it stays in the verified token cache.
+     * @param token The token supplied in the request.
+     * @return The claims from the token if it is valid, otherwise an empty
+     * Optional.
+     */
+    public Optional<Claims> verifyToken(String token) {
+        try {
+            return Optional.of(extractAllClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Builds a principal for the user making the request from the claims of
+     * a verified token.
+     * @param claims The claims from a verified token.
+     * @return The principal, or an empty Optional if the token doesn't have
+     * the user ID and role claims (e.g. tokens issued before they were added).
+     */
+    public Optional<AuthenticatedUser> extractPrincipal(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new AuthenticatedUser(
+                userId.longValue(),
+                claims.getSubject(),
+                Role.valueOf(role)
+        ));
+    }
+
     /**
      * Checks if the given token is not expired and is the token generated for
      * the user making the request.
@@ -65,9 +160,9 @@ public class JwtUtils {
      * @return `true` if the token is valid and `false` if not.
      */
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername())
-                && !isTokenExpired(token);
+        final Claims claims = extractAllClaims(token);
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !isTokenExpired(claims);
     }
 
     /**
@@ -76,60 +171,97 @@ public class JwtUtils {
      * @return The username (email) stored in the token.
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return extractAllClaims(token).getSubject();
     }
 
     /**
-     * Checks if the given JWT token is expired or not.
-     * @param token A JWT token.
+     * Checks if the given JWT claims are expired or not.
+     * @param claims The claims from a JWT token.
      * @return `true` if the token is expired, `false` if not.
      */
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     /**
-     * Extracts the expiration datetime from the given JWT token.
+     * Extracts all the claims from the given token, using the verified token
+     * cache if the token has already been verified. Tokens without an
+     * expiration are rejected, as they would never expire from the cache.
      * @param token A JWT token.
-     * @return The expiration date of the JWT token.
+     * @return the claims from a JWT token.
+     * @throws JwtException If the token is invalid, expired or has no
+     * expiration.
      */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private Claims extractAllClaims(String token) {
+        final String tokenHash = hashToken(token);
+        Claims claims = verifiedTokens.getIfPresent(tokenHash);
+        if (claims != null && !isTokenExpired(claims)) {
+            return claims;
+        }
+        long start = System.nanoTime();
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() == null) {
+                throw new MissingClaimException(null, claims,
+                        "JWT has no expiration");
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTokenTimer.record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        validTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
     }
 
     /**
-     * Extracts a claim from the given token by using the given claimsResolver.
+     * Hashes a token so raw tokens are never kept in memory as cache keys.
      * @param token A JWT token.
-     * @param claimsResolver A method from the Claims interface.
-     * @return The value of the claim.
+     * @return A SHA-256 hash of the token.
      */
-    private <T> T extractClaim(String token,
-            Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private static String hashToken(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
-     * Extracts all the claims from the given token.
-     * @param token A JWT token.
-     * @return the claims from a JWT token.
+     * Creates a key from a JWT token from a secret key string
+     * @param secretKey The Base64 encoded secret key.
+     * @return A key.
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static Key createSignInKey(String secretKey) {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        return Keys.hmacShaKeyFor(keyBytes);
     }
 
     /**
-     * Creates a key from a JWT token from a secret key string
-     * @return A key.
+     * Expires cached claims at the same time as the token they belong to.
      */
-    private Key getSignInKey() {
-        String SECRET_KEY = environment.getProperty("jwt.secret-key");
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static class TokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims,
+                long currentTime) {
+            long millisLeft = claims.getExpiration().getTime()
+                    - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims,
+                long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims,
+                long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
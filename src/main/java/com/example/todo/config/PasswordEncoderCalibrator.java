@@ -0,0 +1,267 @@
+package com.example.todo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the password encoder for this deployment. The encoder used for new
+ * hashes is selected with auth.password.encoder (bcrypt, or argon2 which is
+ * memory-hard), and its work factor (the bcrypt cost or the argon2
+ * iterations) is calibrated on startup so that one hash takes about
+ * auth.password.target-hash-ms on this hardware. It can also be fixed with
+ * auth.password.bcrypt.cost or auth.password.argon2.iterations, e.g. so every
+ * node of a deployment uses the same work factor.
+ * <p>
+ * Hashes are stored with an {id} prefix so hashes from either encoder (and
+ * unprefixed bcrypt hashes from before) can still be checked, and
+ * upgradeEncoding() is true for any hash that wasn't made by the current
+ * encoder or has a different work factor, so it is rehashed (up or down) on
+ * login. A fixed work factor is the same on every node, so any other work
+ * factor is rehashed. A calibrated one can differ by a step between nodes, so
+ * hashes within auth.password.calibration-tolerance of it are kept, and nodes
+ * don't keep rehashing the same password back and forth.
+ */
+public class PasswordEncoderCalibrator {
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+    private static final Logger logger = LoggerFactory.getLogger(
+            PasswordEncoderCalibrator.class
+    );
+    private static final int BCRYPT_BASE_COST = 8;
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int ARGON2_MIN_ITERATIONS = 2;
+    private static final int CALIBRATION_RUNS = 5;
+
+    private final Environment environment;
+    private final int calibrationTolerance;
+
+    public PasswordEncoderCalibrator(Environment environment) {
+        this.environment = environment;
+        this.calibrationTolerance = environment.getProperty(
+                "auth.password.calibration-tolerance", Integer.class, 1);
+    }
+
+    /**
+     * Creates the password encoder, calibrating the work factor of the
+     * selected encoder.
+     * @return A PasswordEncoder which encodes with the selected encoder and
+     * can check hashes from any of the encoders.
+     */
+    public PasswordEncoder createPasswordEncoder() {
+        String encoderId = environment.getProperty("auth.password.encoder",
+                BCRYPT);
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(environment
+                .getProperty("auth.password.target-hash-ms", Long.class, 250L));
+        PasswordEncoder bcrypt;
+        PasswordEncoder argon2;
+        switch (encoderId) {
+            case BCRYPT -> {
+                bcrypt = createBCryptEncoder(targetNanos);
+                argon2 = Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            }
+            case ARGON2 -> {
+                bcrypt = new BCryptPasswordEncoder();
+                argon2 = createArgon2Encoder(targetNanos);
+            }
+            default -> throw new IllegalStateException(
+                    "Unknown password encoder " + encoderId
+            );
+        }
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(
+                encoderId,
+                Map.of(BCRYPT, bcrypt, ARGON2, argon2)
+        );
+        // Hashes from before the {id} prefix was added are all bcrypt
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
+    }
+
+    /**
+     * Creates the bcrypt encoder with the configured cost, or the cost that
+     * takes closest to the target time without going over the maximum.
+     * @param targetNanos The target time for one hash.
+     * @return A bcrypt encoder.
+     */
+    private PasswordEncoder createBCryptEncoder(long targetNanos) {
+        Integer cost = environment.getProperty("auth.password.bcrypt.cost",
+                Integer.class);
+        if (cost != null) {
+            return new CalibratedBCryptPasswordEncoder(cost, 0);
+        }
+        // Each extra cost doubles the time, so the base cost is timed and the
+        // rest is worked out from it
+        long baseNanos = medianNanos(BCRYPT_BASE_COST,
+                baseCost -> new BCryptPasswordEncoder(baseCost));
+        cost = workFactorForTarget(
+                BCRYPT_BASE_COST,
+                baseNanos,
+                targetNanos,
+                true,
+                environment.getProperty("auth.password.bcrypt.min-cost",
+                        Integer.class, 10),
+                environment.getProperty("auth.password.bcrypt.max-cost",
+                        Integer.class, 16)
+        );
+        logger.info("Calibrated bcrypt cost {} ({} ms at cost {})", cost,
+                TimeUnit.NANOSECONDS.toMillis(baseNanos), BCRYPT_BASE_COST);
+        return new CalibratedBCryptPasswordEncoder(cost, calibrationTolerance);
+    }
+
+    /**
+     * Creates the argon2 encoder with the configured memory and iterations,
+     * or the number of iterations that takes closest to the target time.
+     * @param targetNanos The target time for one hash.
+     * @return An argon2 encoder.
+     */
+    private PasswordEncoder createArgon2Encoder(long targetNanos) {
+        int memoryKb = environment.getProperty("auth.password.argon2.memory-kb",
+                Integer.class, 19_456);
+        Integer iterations = environment.getProperty(
+                "auth.password.argon2.iterations", Integer.class);
+        if (iterations != null) {
+            return new CalibratedArgon2PasswordEncoder(memoryKb, iterations,
+                    0);
+        }
+        // The time grows linearly with the iterations
+        long oneIterationNanos = medianNanos(1, oneIteration ->
+                new Argon2PasswordEncoder(ARGON2_SALT_LENGTH,
+                        ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, memoryKb,
+                        oneIteration));
+        iterations = workFactorForTarget(
+                1,
+                oneIterationNanos,
+                targetNanos,
+                false,
+                ARGON2_MIN_ITERATIONS,
+                environment.getProperty(
+                        "auth.password.argon2.max-iterations",
+                        Integer.class, 10)
+        );
+        logger.info("Calibrated argon2 iterations {} with {} KB ({} ms "
+                + "per iteration)", iterations, memoryKb,
+                TimeUnit.NANOSECONDS.toMillis(oneIterationNanos));
+        return new CalibratedArgon2PasswordEncoder(memoryKb, iterations,
+                calibrationTolerance);
+    }
+
+    /**
+     * Times hashing a password with an encoder with the given work factor.
+     * @param workFactor The work factor to time.
+     * @param encoder Creates an encoder with a work factor.
+     * @return The median time of a few hashes after a warm up hash.
+     */
+    private static long medianNanos(int workFactor,
+            IntFunction<PasswordEncoder> encoder) {
+        PasswordEncoder passwordEncoder = encoder.apply(workFactor);
+        passwordEncoder.encode("calibration");
+        long[] times = new long[CALIBRATION_RUNS];
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            passwordEncoder.encode("calibration");
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[CALIBRATION_RUNS / 2];
+    }
+
+    /**
+     * Works out the largest work factor whose hash time doesn't go over the
+     * target, from the time measured at a base work factor.
+     * @param baseWorkFactor The work factor that was timed.
+     * @param baseNanos The time of one hash at the base work factor.
+     * @param targetNanos The target time for one hash.
+     * @param exponential `true` if each extra work factor doubles the time
+     * (bcrypt), `false` if the time grows linearly (argon2 iterations).
+     * @param min The smallest work factor allowed.
+     * @param max The largest work factor allowed.
+     * @return The work factor.
+     */
+    static int workFactorForTarget(int baseWorkFactor, long baseNanos,
+            long targetNanos, boolean exponential, int min, int max) {
+        double ratio = (double) targetNanos / Math.max(1, baseNanos);
+        int workFactor = exponential
+                ? baseWorkFactor + (int) Math.floor(Math.log(ratio)
+                        / Math.log(2))
+                : (int) Math.floor(baseWorkFactor * ratio);
+        return Math.max(min, Math.min(max, workFactor));
+    }
+
+    /**
+     * A bcrypt encoder which wants a hash rehashed whenever its cost differs
+     * from this encoder's by more than the tolerance, or can't be read from
+     * the hash.
+     */
+    static class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+        private static final Pattern COST = Pattern.compile(
+                "^\\$2[abxy]?\\$(\\d{2})\\$"
+        );
+        private final int cost;
+        private final int tolerance;
+
+        CalibratedBCryptPasswordEncoder(int cost, int tolerance) {
+            super(cost);
+            this.cost = cost;
+            this.tolerance = tolerance;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = COST.matcher(encodedPassword);
+            return !matcher.find()
+                    || Math.abs(Integer.parseInt(matcher.group(1)) - cost)
+                            > tolerance;
+        }
+    }
+
+    /**
+     * An argon2 encoder which wants a hash rehashed whenever its memory
+     * differs from this encoder's, its iterations differ by more than the
+     * tolerance, or they can't be read from the hash.
+     */
+    static class CalibratedArgon2PasswordEncoder extends Argon2PasswordEncoder {
+        private static final Pattern PARAMETERS = Pattern.compile(
+                "\\$m=(\\d+),t=(\\d+),p=(\\d+)\\$"
+        );
+        private final int memoryKb;
+        private final int iterations;
+        private final int tolerance;
+
+        CalibratedArgon2PasswordEncoder(int memoryKb, int iterations,
+                int tolerance) {
+            super(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM,
+                    memoryKb, iterations);
+            this.memoryKb = memoryKb;
+            this.iterations = iterations;
+            this.tolerance = tolerance;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = PARAMETERS.matcher(encodedPassword);
+            return !matcher.find()
+                    || Integer.parseInt(matcher.group(1)) != memoryKb
+                    || Math.abs(Integer.parseInt(matcher.group(2))
+                            - iterations) > tolerance;
+        }
+    }
+}
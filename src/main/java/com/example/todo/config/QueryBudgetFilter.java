@@ -0,0 +1,112 @@
+package com.example.todo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A filter which counts the SQL statements each request runs, including
+ * those in the security filters and lazy loading while the response is
+ * written. A request which runs more statements than the budget, or runs the
+ * same statement repeatedly (a sign of N+1 access), is logged, or fails if
+ * query-guard.fail-on-violation is set (for tests). A failing request fails
+ * on the statement which breaks the budget, before the response is written.
+ * <p>
+ * Statements run on other threads, like the async export, aren't counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(
+            QueryBudgetFilter.class
+    );
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final int repeatedStatementThreshold;
+    private final boolean failOnViolation;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public QueryBudgetFilter(Environment environment,
+            MeterRegistry meterRegistry) {
+        this.enabled = environment.getProperty("query-guard.enabled",
+                Boolean.class, true);
+        this.maxStatements = environment.getProperty(
+                "query-guard.max-statements", Integer.class, 10);
+        this.repeatedStatementThreshold = environment.getProperty(
+                "query-guard.repeated-statement-threshold", Integer.class, 3);
+        this.failOnViolation = environment.getProperty(
+                "query-guard.fail-on-violation", Boolean.class, false);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    /**
+     * Counts the statements run while the request is handled and checks
+     * them against the budget.
+     * @param request The incoming request.
+     * @param response The response from the request.
+     * @param filterChain The filter chain for the request.
+     */
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        QueryCounter counter = QueryCounter.start(maxStatements,
+                repeatedStatementThreshold, failOnViolation);
+        request.setAttribute(QueryCounter.REQUEST_ATTRIBUTE, counter);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.stop();
+        }
+
+        Object pattern = request.getAttribute(
+                HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " "
+                + (pattern == null ? "UNKNOWN" : pattern);
+        DistributionSummary.builder("http.server.requests.statements")
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(counter.getTotal());
+        if (failOnViolation) {
+            // The counter has already failed the request
+            return;
+        }
+
+        Map<String, Integer> repeated = counter.getRepeatedStatements(
+                repeatedStatementThreshold);
+        if (counter.getTotal() > maxStatements) {
+            logger.warn("{} ran {} SQL statements (budget {})",
+                    endpoint, counter.getTotal(), maxStatements);
+        }
+        if (!repeated.isEmpty()) {
+            logger.warn("{} repeated SQL statements (possible N+1): {}",
+                    endpoint, repeated);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.todo.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Passes every SQL statement Hibernate prepares to the {@link QueryCounter}
+ * of the current thread, if there is one. Registered with the
+ * hibernate.session_factory.statement_inspector property.
+ */
+public class QueryCountInspector implements StatementInspector {
+    @Override
+    public String inspect(String sql) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter != null) {
+            counter.record(sql);
+        }
+        return sql;
+    }
+}
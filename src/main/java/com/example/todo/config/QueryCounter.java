@@ -0,0 +1,127 @@
+package com.example.todo.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements prepared by Hibernate on the current thread
+ * while a request is being handled (see {@link QueryCountInspector} and
+ * {@link QueryBudgetFilter}). Statements are counted by their SQL, which
+ * has placeholders instead of parameters, so the same query run once per
+ * row (N+1 access) shows up as one statement with a high count.
+ * <p>
+ * Sequence calls aren't counted. The pooled optimizer makes one for every
+ * block of IDs, so they grow with the number of rows created (like a batch
+ * of new tasks) and depend on how many IDs earlier requests used up.
+ */
+public class QueryCounter {
+    // The request attribute the counter for a request is stored under
+    public static final String REQUEST_ATTRIBUTE = QueryCounter.class.getName();
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> statements = new HashMap<>();
+    private final int maxStatements;
+    private final int repeatedStatementThreshold;
+    private final boolean failOnViolation;
+    private int total;
+
+    private QueryCounter(int maxStatements, int repeatedStatementThreshold,
+            boolean failOnViolation) {
+        this.maxStatements = maxStatements;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+        this.failOnViolation = failOnViolation;
+    }
+
+    /**
+     * Starts counting statements on the current thread.
+     * @param maxStatements The number of statements a request can run.
+     * @param repeatedStatementThreshold The number of times a request can
+     * run the same statement before it is treated as N+1 access.
+     * @param failOnViolation Whether the statement which goes over the budget
+     * or repeats too often should fail.
+     * @return The new counter.
+     */
+    public static QueryCounter start(int maxStatements,
+            int repeatedStatementThreshold, boolean failOnViolation) {
+        QueryCounter counter = new QueryCounter(maxStatements,
+                repeatedStatementThreshold, failOnViolation);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /**
+     * Stops counting statements on the current thread.
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Gets the counter for the current thread.
+     * @return The counter, or null if statements aren't being counted.
+     */
+    static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Counts a statement.
+     * @param sql The SQL of the statement.
+     * @throws IllegalStateException If the statement goes over the budget or
+     * repeats too often and violations fail. It is thrown while the statement
+     * is prepared, so the request fails before its response is written.
+     */
+    void record(String sql) {
+        if (isSequenceCall(sql)) {
+            return;
+        }
+        int count = statements.merge(sql, 1, Integer::sum);
+        total++;
+        if (!failOnViolation) {
+            return;
+        }
+        if (total > maxStatements) {
+            throw new IllegalStateException(String.format(
+                    "Request ran %d SQL statements (budget %d)",
+                    total, maxStatements));
+        }
+        if (count >= repeatedStatementThreshold) {
+            throw new IllegalStateException(String.format(
+                    "Request repeated SQL statements (possible N+1): {%s=%d}",
+                    sql, count));
+        }
+    }
+
+    private static boolean isSequenceCall(String sql) {
+        String lowerCase = sql.toLowerCase(Locale.ROOT);
+        return lowerCase.contains("nextval(")
+                || lowerCase.contains("next value for");
+    }
+
+    /**
+     * Gets the number of statements prepared.
+     * @return The number of statements.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the statements which were prepared at least the given number of
+     * times.
+     * @param threshold The minimum number of times.
+     * @return The SQL of each repeated statement and how many times it was
+     * prepared.
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statements.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.todo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free rate limiter which gives each key its own token bucket, using
+ * the generic cell rate algorithm (GCRA). Each bucket is a single AtomicLong
+ * holding the time the next request is due, which is advanced with a
+ * compare-and-set, so requests for different keys never contend and requests
+ * for the same key never block.
+ * <p>
+ * Buckets are kept in a bounded cache and evicted once they have been idle
+ * long enough to be full again, so memory stays bounded however many keys
+ * are seen.
+ */
+public class RateLimiter {
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier clock;
+    private final Cache<String, AtomicLong> buckets;
+
+    /**
+     * Creates a rate limiter.
+     * @param requestsPerMinute The sustained rate allowed for each key.
+     * @param burst The number of requests a key can make at once.
+     * @param maxKeys The maximum number of buckets to keep.
+     */
+    public RateLimiter(long requestsPerMinute, int burst, long maxKeys) {
+        this(requestsPerMinute, burst, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(long requestsPerMinute, int burst, long maxKeys,
+            LongSupplier clock) {
+        this.emissionIntervalNanos = Math.max(1,
+                TimeUnit.MINUTES.toNanos(1) / requestsPerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                // An idle bucket is full again after this, so it can go
+                .expireAfterAccess(Duration.ofNanos(
+                        burstToleranceNanos + emissionIntervalNanos
+                ))
+                .ticker(clock::getAsLong)
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket for the given key if there is one.
+     * @param key The key to limit, e.g. a client IP.
+     * @return 0 if the request is allowed, otherwise the number of
+     * nanoseconds until the key can make another request.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong nextDue = buckets.get(key,
+                k -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = clock.getAsLong();
+            long current = nextDue.get();
+            long start = Math.max(current, now);
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (nextDue.compareAndSet(current,
+                    start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.todo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled methods, which run on Spring Boot's task scheduler
+ * (e.g. the reconciliation of the task stats in
+ * {@link com.example.todo.task.TaskStatsCache}).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,8 +1,11 @@
 package com.example.todo.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -23,13 +26,20 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
     private final AuthenticationProvider authenticationProvider;
+    private final boolean separateManagementPort;
 
     @Autowired
     public SecurityConfig(JwtAuthenticationFilter jwtAuthFilter,
-            AuthenticationProvider authenticationProvider) {
+            AuthRateLimitFilter authRateLimitFilter,
+            AuthenticationProvider authenticationProvider,
+            Environment environment) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.authRateLimitFilter = authRateLimitFilter;
         this.authenticationProvider = authenticationProvider;
+        this.separateManagementPort = ManagementPortType.get(environment)
+                == ManagementPortType.DIFFERENT;
     }
 
     /**
@@ -42,6 +52,17 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/auth/register", "/api/v1/auth/login").permitAll()
+                        // Probed without a token
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Metrics are only served on the management port,
+                        // which is bound to an internal interface. They are
+                        // never served on the public port.
+                        .requestMatchers("/actuator/**").access(
+                                (authentication, context) ->
+                                        new AuthorizationDecision(
+                                                separateManagementPort
+                                        )
+                        )
                         .anyRequest().authenticated()
                 )
                 .csrf(AbstractHttpConfigurer::disable)
@@ -55,6 +76,11 @@ public class SecurityConfig {
                 .addFilterBefore(
                         jwtAuthFilter,
                         UsernamePasswordAuthenticationFilter.class
+                )
+                // Rejected auth requests never reach the JWT filter
+                .addFilterBefore(
+                        authRateLimitFilter,
+                        JwtAuthenticationFilter.class
                 );
 
         return http.build();
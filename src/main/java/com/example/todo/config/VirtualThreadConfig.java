@@ -0,0 +1,104 @@
+package com.example.todo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration to run requests on virtual threads, enabled with the
+ * "virtual" profile (threads.virtual.enabled=true).
+ * <p>
+ * Tomcat runs each request, including the JWT filter and the transactional
+ * TaskService calls it makes, on a new virtual thread instead of a thread
+ * from its pool. The request stays on one thread, so the thread-local
+ * SecurityContextHolder and transaction work as before. Async work (such as
+ * streamed exports) also runs on virtual threads, with the security context
+ * of the request copied over.
+ * <p>
+ * Virtual threads need Java 21 or later. The executor is looked up
+ * reflectively so the application still builds for Java 17, and startup fails
+ * if the mode is enabled on an older JVM.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    /**
+     * Creates the executor which starts a new virtual thread for each task.
+     * @return A virtual thread per task executor.
+     * @throws IllegalStateException If the JVM doesn't support virtual
+     * threads.
+     */
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException(
+                    "Virtual threads need Java " + VIRTUAL_THREADS_JAVA_VERSION
+                            + " or later, this is Java "
+                            + Runtime.version().feature()
+            );
+        }
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                    "Could not create a virtual thread executor", e
+            );
+        }
+    }
+
+    /**
+     * Makes Tomcat run requests on virtual threads.
+     * @param virtualThreadExecutor The virtual thread executor.
+     * @return A customizer which sets the executor of the protocol handler.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler>
+            virtualThreadProtocolHandler(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(
+                virtualThreadExecutor
+        );
+    }
+
+    /**
+     * Replaces the application task executor (used for async MVC requests
+     * and @Async methods) with one that runs on virtual threads and copies
+     * the security context of the caller, so AuthUtils still finds the
+     * authenticated user.
+     * @param virtualThreadExecutor The virtual thread executor.
+     * @return An AsyncTaskExecutor which runs tasks on virtual threads.
+     */
+    @Bean(name = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+    })
+    public AsyncTaskExecutor applicationTaskExecutor(
+            ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(
+                new DelegatingSecurityContextExecutorService(
+                        virtualThreadExecutor
+                )
+        );
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads.
+     * @return `true` if this is Java 21 or later, `false` if not.
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= VIRTUAL_THREADS_JAVA_VERSION;
+    }
+}
@@ -1,5 +1,12 @@
 package com.example.todo.exceptions;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,9 +15,34 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
 public class CustomExceptionHandler {
+    private static final Logger logger = LoggerFactory.getLogger(
+            CustomExceptionHandler.class
+    );
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public CustomExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Counts an error response by the exception that caused it.
+     * @param ex The exception that was handled.
+     * @param status The status of the error response.
+     */
+    private void countError(Exception ex, HttpStatus status) {
+        Counter.builder("api.errors")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<CustomErrorResponse> handleMethodArgumentException(
             MethodArgumentNotValidException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.BAD_REQUEST.value());
         String message = ex.getFieldError() == null
@@ -24,6 +56,7 @@ public class CustomExceptionHandler {
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<CustomErrorResponse> handleBadRequestException(
             BadRequestException ex) {
+        countError(ex, HttpStatus.BAD_REQUEST);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.BAD_REQUEST.value());
         errorResponse.setMessage(ex.getMessage());
@@ -34,6 +67,7 @@ public class CustomExceptionHandler {
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<CustomErrorResponse> handleAuthenticationException(
             AuthenticationException ex) {
+        countError(ex, HttpStatus.UNAUTHORIZED);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.UNAUTHORIZED.value());
         errorResponse.setMessage(ex.getMessage());
@@ -44,6 +78,7 @@ public class CustomExceptionHandler {
     @ExceptionHandler(AuthorisationException.class)
     public ResponseEntity<CustomErrorResponse> handleAuthorisationException(
             AuthorisationException ex) {
+        countError(ex, HttpStatus.FORBIDDEN);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.FORBIDDEN.value());
         errorResponse.setMessage(ex.getMessage());
@@ -54,6 +89,7 @@ public class CustomExceptionHandler {
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<CustomErrorResponse> handleNotFoundException(
             NotFoundException ex) {
+        countError(ex, HttpStatus.NOT_FOUND);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.NOT_FOUND.value());
         errorResponse.setMessage(ex.getMessage());
@@ -61,10 +97,48 @@ public class CustomExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<CustomErrorResponse> handleConflictException(
+            ConflictException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        CustomErrorResponse errorResponse = new CustomErrorResponse();
+        errorResponse.setStatus(HttpStatus.CONFLICT.value());
+        errorResponse.setMessage(ex.getMessage());
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    // Thrown when a versioned UPDATE matched no rows because another request
+    // changed the row first
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<CustomErrorResponse> handleOptimisticLockingException(
+            OptimisticLockingFailureException ex) {
+        countError(ex, HttpStatus.CONFLICT);
+        CustomErrorResponse errorResponse = new CustomErrorResponse();
+        errorResponse.setStatus(HttpStatus.CONFLICT.value());
+        errorResponse.setMessage("Task was changed by another request");
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<CustomErrorResponse> handleServiceUnavailableException(
+            ServiceUnavailableException ex) {
+        countError(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        CustomErrorResponse errorResponse = new CustomErrorResponse();
+        errorResponse.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorResponse.setMessage(ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<CustomErrorResponse> handleException(Exception ex) {
-        System.out.println(ex.getClass());
-        System.out.println(ex.getMessage());
+        logger.error("Unhandled exception", ex);
+        countError(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         CustomErrorResponse errorResponse = new CustomErrorResponse();
         errorResponse.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
         errorResponse.setMessage("Internal Server Error");
@@ -0,0 +1,89 @@
+package com.example.todo.reactive;
+
+import com.example.todo.auth.AuthResponse;
+import com.example.todo.auth.LoginPayload;
+import com.example.todo.auth.RegistrationPayload;
+import com.example.todo.exceptions.AuthorisationException;
+import com.example.todo.exceptions.BadRequestException;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * A controller to handle incoming requests for the /api/v1/auth endpoint in
+ * the reactive variant, with the same contract as AuthController.
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+    private final ReactiveAuthService authService;
+
+    @Autowired
+    public ReactiveAuthController(ReactiveAuthService authService) {
+        this.authService = authService;
+    }
+
+    /**
+     * Handles incoming requests for the /api/v1/auth/register endpoint which
+     * registers a new user in the system.
+     * @param payload The payload for the incoming request.
+     * @return The new user data with a JWT token for the user creating an
+     * account.
+     * @throws BadRequestException If an account with the email from the payload
+     * already exists.
+     */
+    @PostMapping("/register")
+    public Mono<ResponseEntity<AuthResponse>> registerUser(
+            @RequestBody @Valid RegistrationPayload payload
+    ) {
+        return authService.getUserByEmail(payload.email())
+                .flatMap(existing -> Mono.<ReactiveUser>error(
+                        new BadRequestException(
+                                "Account with email already exists")))
+                .switchIfEmpty(Mono.defer(() ->
+                        authService.createUser(payload)))
+                .map(user -> new ResponseEntity<>(
+                        authService.createAuthResponse(user),
+                        HttpStatus.CREATED
+                ));
+    }
+
+    /**
+     * Handles incoming requests for the /api/v1/auth/login endpoint which
+     * authenticates the user making the request and sends back the user data
+     * with a JWT token.
+     * @param payload The payload for the incoming request (email and password).
+     * @return The User data and a JWT token for the user making the request.
+     * @throws BadRequestException If an account with the given email from the
+     * payload doesn't exist.
+     * @throws AuthorisationException If the password from the payload is
+     * incorrect.
+     */
+    @PostMapping("/login")
+    public Mono<ResponseEntity<AuthResponse>> signInUser(
+            @RequestBody @Valid LoginPayload payload
+    ) {
+        return authService.getUserByEmail(payload.email())
+                .switchIfEmpty(Mono.error(() -> new BadRequestException(
+                        "Account with this email doesn't exist"
+                )))
+                .flatMap(user -> authService
+                        .isPasswordValid(payload.password(), user.getPassword())
+                        .flatMap(valid -> valid
+                                ? authService.rehashPasswordIfNeeded(user,
+                                        payload.password())
+                                : Mono.error(new AuthorisationException(
+                                        "Incorrect password"))))
+                .map(user -> ResponseEntity.ok(
+                        authService.createAuthResponse(user)
+                ));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.todo.reactive;
+
+import com.example.todo.auth.AuthResponse;
+import com.example.todo.auth.AuthenticatedUser;
+import com.example.todo.auth.PasswordHasher;
+import com.example.todo.auth.RegistrationPayload;
+import com.example.todo.config.JwtUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * Contains business logic for the auth endpoints of the reactive variant.
+ * Password hashing blocks, so it's handed to the PasswordHasher pool from a
+ * bounded elastic thread instead of running on the event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthService {
+    private final ReactiveUserRepository userRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final ReactiveSequences sequences;
+    private final PasswordHasher passwordHasher;
+    private final JwtUtils jwtUtils;
+    private final TransactionalOperator transactionalOperator;
+
+    @Autowired
+    public ReactiveAuthService(ReactiveUserRepository userRepository,
+            R2dbcEntityTemplate entityTemplate, ReactiveSequences sequences,
+            PasswordHasher passwordHasher, JwtUtils jwtUtils,
+            TransactionalOperator transactionalOperator) {
+        this.userRepository = userRepository;
+        this.entityTemplate = entityTemplate;
+        this.sequences = sequences;
+        this.passwordHasher = passwordHasher;
+        this.jwtUtils = jwtUtils;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * Gets the user with the given email (if a user with that email exists).
+     * @param email The email of the user.
+     * @return The user, or an empty Mono.
+     */
+    public Mono<ReactiveUser> getUserByEmail(String email) {
+        return userRepository.findByEmail(email);
+    }
+
+    /**
+     * Creates a user with the data from the given payload, along with their
+     * task list version (like AuthService). The password is hashed before
+     * the transaction starts.
+     * @param payload The name, email and password for the new user.
+     * @return The new user.
+     */
+    public Mono<ReactiveUser> createUser(RegistrationPayload payload) {
+        return hash(payload.password().trim())
+                .zipWith(sequences.nextId(ReactiveSequences.USER_SEQUENCE))
+                // The ID is already assigned, so save() would update
+                .flatMap(hashAndId -> entityTemplate.insert(new ReactiveUser(
+                                hashAndId.getT2(),
+                                payload.name().trim(),
+                                payload.email().trim(),
+                                hashAndId.getT1()
+                        ))
+                        .flatMap(user -> entityTemplate.getDatabaseClient()
+                                .sql("INSERT INTO task_list_version "
+                                        + "(user_id, version) "
+                                        + "VALUES (:userId, 0)")
+                                .bind("userId", user.getId())
+                                .then()
+                                .thenReturn(user))
+                        .as(transactionalOperator::transactional));
+    }
+
+    /**
+     * Checks if the given raw password is the same as the given encrypted
+     * password.
+     * @param password The raw password.
+     * @param encryptedPassword The encrypted password.
+     * @return `true` if the raw password matches the encrypted password.
+     */
+    public Mono<Boolean> isPasswordValid(String password,
+            String encryptedPassword) {
+        return Mono.fromCallable(() -> passwordHasher.matches(password,
+                        encryptedPassword))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Rehashes the user's password with the current encoder and work factor
+     * if their stored hash was made with a different one.
+     * @param user The user that has just logged in.
+     * @param password The raw password the user logged in with.
+     * @return The user.
+     */
+    public Mono<ReactiveUser> rehashPasswordIfNeeded(ReactiveUser user,
+            String password) {
+        if (!passwordHasher.needsRehash(user.getPassword())) {
+            return Mono.just(user);
+        }
+        return hash(password).flatMap(hash -> {
+            user.setPassword(hash);
+            return userRepository.save(user);
+        });
+    }
+
+    /**
+     * Creates the response for a user who has registered or logged in, with
+     * a token that works with both variants.
+     * @param user The user.
+     * @return The user data with a JWT token.
+     */
+    public AuthResponse createAuthResponse(ReactiveUser user) {
+        String token = jwtUtils.generateToken(
+                Map.of(
+                        JwtUtils.USER_ID_CLAIM, user.getId(),
+                        JwtUtils.ROLE_CLAIM, user.getRole().name()
+                ),
+                new AuthenticatedUser(user.getId(), user.getEmail(),
+                        user.getRole())
+        );
+        return new AuthResponse(user.getId(), user.getName(), user.getEmail(),
+                token);
+    }
+
+    private Mono<String> hash(String password) {
+        return Mono.fromCallable(() -> passwordHasher.encode(password))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
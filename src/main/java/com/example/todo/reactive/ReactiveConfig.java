@@ -0,0 +1,59 @@
+package com.example.todo.reactive;
+
+import com.example.todo.config.JwtUtils;
+import com.example.todo.config.PasswordEncoderCalibrator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Configuration for the beans the reactive variant shares with the servlet
+ * application.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+    private final Environment environment;
+
+    @Autowired
+    public ReactiveConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * The same JWT utilities as the servlet application, so tokens from
+     * either work with both.
+     * @param meterRegistry The registry for the token metrics.
+     * @return A JwtUtils object.
+     */
+    @Bean
+    public JwtUtils jwtUtils(MeterRegistry meterRegistry) {
+        return new JwtUtils(environment, meterRegistry);
+    }
+
+    /**
+     * Serves the reactive variant with Reactor Netty. Tomcat is on the
+     * classpath for the servlet application, and Spring Boot would pick it
+     * over Netty for a reactive application too.
+     * @return A NettyReactiveWebServerFactory object.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * The same calibrated password encoder as the servlet application.
+     * @return A PasswordEncoder object.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new PasswordEncoderCalibrator(environment)
+                .createPasswordEncoder();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.todo.reactive;
+
+import com.example.todo.exceptions.CustomErrorResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Handles the WebFlux request errors. Everything else is handled by
+ * CustomExceptionHandler, after this.
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<CustomErrorResponse> handleBindException(
+            WebExchangeBindException ex) {
+        String message = ex.getFieldError() == null
+                ? "Missing field"
+                : ex.getFieldError().getDefaultMessage();
+        return ResponseEntity.badRequest().body(
+                new CustomErrorResponse(HttpStatus.BAD_REQUEST.value(), message)
+        );
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<CustomErrorResponse> handleInputException(
+            ServerWebInputException ex) {
+        return ResponseEntity.badRequest().body(new CustomErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                "Invalid request"
+        ));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.todo.reactive;
+
+import com.example.todo.config.JwtUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Configuration for the security of the reactive variant, with the same
+ * rules as the servlet application.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+    private final JwtUtils jwtUtils;
+    private final boolean separateManagementPort;
+
+    @Autowired
+    public ReactiveSecurityConfig(JwtUtils jwtUtils, Environment environment) {
+        this.jwtUtils = jwtUtils;
+        this.separateManagementPort = ManagementPortType.get(environment)
+                == ManagementPortType.DIFFERENT;
+    }
+
+    /**
+     * Implements a stateless security filter chain authenticated by JWT
+     * tokens.
+     * @param http A ServerHttpSecurity object.
+     * @return A security web filter chain.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http) {
+        return http
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/api/v1/auth/register", "/api/v1/auth/login").permitAll()
+                        // Probed without a token
+                        .pathMatchers("/actuator/health").permitAll()
+                        // Metrics are only served on the management port,
+                        // which is bound to an internal interface. They are
+                        // never served on the public port.
+                        .pathMatchers("/actuator/**").access(
+                                (authentication, context) -> Mono.just(
+                                        new AuthorizationDecision(
+                                                separateManagementPort
+                                        )
+                                )
+                        )
+                        .anyExchange().authenticated()
+                )
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(
+                        NoOpServerSecurityContextRepository.getInstance()
+                )
+                // Unauthenticated requests get a 403 like the servlet app
+                .exceptionHandling(exceptionHandling -> exceptionHandling
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(
+                                HttpStatus.FORBIDDEN
+                        ))
+                )
+                .addFilterAt(
+                        new JwtAuthenticationWebFilter(jwtUtils),
+                        SecurityWebFiltersOrder.AUTHENTICATION
+                )
+                .build();
+    }
+}
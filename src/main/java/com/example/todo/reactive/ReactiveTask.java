@@ -0,0 +1,102 @@
+package com.example.todo.reactive;
+
+import com.example.todo.task.TaskDTO;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * The R2DBC mapping of the task table for the reactive variant. The version
+ * is checked and bumped on every update like the JPA Task's.
+ */
+@Table("task")
+public class ReactiveTask {
+    @Id
+    private Long id;
+    private String title;
+    private String description;
+    @Column("due_date")
+    private LocalDate dueDate;
+    @Column("is_complete")
+    private boolean isComplete;
+    @Column("user_id")
+    private Long userId;
+    // Null until the task is inserted, which marks it as new
+    @Version
+    private Long version;
+
+    public ReactiveTask() {}
+
+    public ReactiveTask(Long id, String title, String description,
+            LocalDate dueDate, Long userId) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.userId = userId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    public boolean isComplete() {
+        return isComplete;
+    }
+
+    public void setComplete(boolean complete) {
+        isComplete = complete;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public TaskDTO toDTO() {
+        return new TaskDTO(id, userId, title, description, dueDate,
+                isComplete, version);
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.todo.reactive;
+
+import com.example.todo.auth.AuthenticatedUser;
+import com.example.todo.exceptions.AuthorisationException;
+import com.example.todo.exceptions.BadRequestException;
+import com.example.todo.exceptions.ConflictException;
+import com.example.todo.exceptions.NotFoundException;
+import com.example.todo.task.NewTaskPayload;
+import com.example.todo.task.TaskDTO;
+import com.example.todo.task.UpdateTaskPayload;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * A controller to handle incoming requests for the /api/v1/task endpoint in
+ * the reactive variant, with the same contract as TaskController for
+ * creating, reading, updating and deleting single tasks and listing a user's
+ * tasks (including ETags). Batches, pages and the export are only served by
+ * the servlet application.
+ */
+@RestController
+@RequestMapping("/api/v1/task")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskController {
+    private final ReactiveTaskService taskService;
+
+    @Autowired
+    public ReactiveTaskController(ReactiveTaskService taskService) {
+        this.taskService = taskService;
+    }
+
+    /**
+     * Handles incoming POST requests for the /api/v1/task endpoint by creating
+     * a task with the given payload in the request body.
+     * @param payload The payload from the request body.
+     * @param user The user making the request.
+     * @return An object with data for the created task.
+     * @throws BadRequestException If the user making the request doesn't exist
+     * in the database.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<TaskDTO>> createTask(
+            @RequestBody @Valid NewTaskPayload payload,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return taskService.createTask(payload, user.id())
+                .switchIfEmpty(Mono.error(() -> new BadRequestException(
+                        "Invalid user")))
+                .map(task -> new ResponseEntity<>(task.toDTO(),
+                        HttpStatus.CREATED));
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/{id} endpoint by
+     * getting the data for task with the given ID. A 304 response is sent if
+     * the If-None-Match header matches the task's ETag.
+     * @param id The ID from the endpoint.
+     * @param user The user making the request.
+     * @param exchange The exchange, to check the If-None-Match header.
+     * @return An object with data for the task with that ID.
+     * @throws NotFoundException If there is no task with that ID.
+     * @throws AuthorisationException If the task with that ID doesn't belong
+     * to the user making the request.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TaskDTO>> getTask(@PathVariable Long id,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            ServerWebExchange exchange) {
+        return taskService.getUserTask(id, user.id())
+                .switchIfEmpty(taskAccessException(id))
+                .flatMap(task -> {
+                    String eTag = taskETag(id, task.getVersion());
+                    if (exchange.checkNotModified(eTag)) {
+                        return Mono.empty();
+                    }
+                    return Mono.just(ResponseEntity.ok()
+                            .eTag(eTag)
+                            .body(task.toDTO()));
+                });
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/user/{userId} endpoint
+     * by getting all the tasks that belong to the user with that user ID. A
+     * 304 response is sent if the If-None-Match header matches the version of
+     * the user's task list, without reading the tasks.
+     * @param userId The user ID from the endpoint.
+     * @param user The user making the request.
+     * @param exchange The exchange, to check the If-None-Match header.
+     * @return A list of all the tasks that belong to the user with that ID.
+     * @throws AuthorisationException If the user ID of the user making the
+     * request is not the same as the user ID from the endpoint.
+     */
+    @GetMapping("/user/{userId}")
+    public Mono<ResponseEntity<List<TaskDTO>>> getUserTasks(
+            @PathVariable Long userId,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            ServerWebExchange exchange) {
+        if (!user.id().equals(userId)) {
+            return Mono.error(new AuthorisationException("Unauthorised"));
+        }
+        return taskService.getTaskListVersion(userId).flatMap(version -> {
+            String eTag = "\"tasks-" + userId + "-" + version + "\"";
+            if (exchange.checkNotModified(eTag)) {
+                return Mono.empty();
+            }
+            return taskService.getUserTasks(userId)
+                    .collectList()
+                    .map(tasks -> ResponseEntity.ok().eTag(eTag).body(tasks));
+        });
+    }
+
+    /**
+     * Handles incoming PUT requests for the /api/v1/task/{id} endpoint by
+     * updating the task with that ID.
+     * @param id The ID from the endpoint.
+     * @param payload The payload from the request body.
+     * @param ifMatch The ETag of the version of the task the client changed
+     * (optional).
+     * @param user The user making the request.
+     * @return An object of the updated task with that ID.
+     * @throws NotFoundException If there is no task with that ID.
+     * @throws AuthorisationException If the task with that ID doesn't belong to
+     * the user making the request.
+     * @throws ConflictException If the task doesn't match the If-Match header.
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<TaskDTO>> updateTask(@PathVariable Long id,
+            @RequestBody @Valid UpdateTaskPayload payload,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return updateUserTask(id, payload, ifMatch, user);
+    }
+
+    /**
+     * Handles incoming PATCH requests for the /api/v1/task/{id} endpoint by
+     * updating only the fields of the task with that ID that are in the
+     * payload.
+     * @param id The ID from the endpoint.
+     * @param payload The payload from the request body.
+     * @param ifMatch The ETag of the version of the task the client changed
+     * (optional).
+     * @param user The user making the request.
+     * @return An object of the updated task with that ID.
+     * @throws NotFoundException If there is no task with that ID.
+     * @throws AuthorisationException If the task with that ID doesn't belong to
+     * the user making the request.
+     * @throws ConflictException If the task doesn't match the If-Match header.
+     */
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<TaskDTO>> patchTask(@PathVariable Long id,
+            @RequestBody @Valid UpdateTaskPayload payload,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return updateUserTask(id, payload, ifMatch, user);
+    }
+
+    /**
+     * Updates the task with the given ID if it belongs to the user making the
+     * request and matches the If-Match header.
+     * @param id The ID of the task.
+     * @param payload The payload from the request body.
+     * @param ifMatch The If-Match header (null if it wasn't sent).
+     * @param user The user making the request.
+     * @return An object of the updated task with its new ETag.
+     */
+    private Mono<ResponseEntity<TaskDTO>> updateUserTask(Long id,
+            UpdateTaskPayload payload, String ifMatch,
+            AuthenticatedUser user) {
+        return taskService.getUserTask(id, user.id())
+                .switchIfEmpty(taskAccessException(id))
+                .flatMap(task -> {
+                    if (ifMatch != null && !matchesETag(ifMatch,
+                            taskETag(id, task.getVersion()))) {
+                        return Mono.error(new ConflictException(
+                                "Task has been changed since version "
+                                        + ifMatch));
+                    }
+                    return taskService.updateTask(task, payload);
+                })
+                .map(task -> ResponseEntity.ok()
+                        .eTag(taskETag(id, task.getVersion()))
+                        .body(task.toDTO()));
+    }
+
+    /**
+     * Handles incoming DELETE requests for the /api/v1/task/{id} endpoint by
+     * deleting the task with that ID
+     * @param id The ID from the endpoint.
+     * @param user The user making the request.
+     * @return A success message if the task was successfully deleted.
+     * @throws NotFoundException If there is no task with that ID.
+     * @throws AuthorisationException If the task with that ID doesn't belong to
+     * the user making the request.
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteTask(@PathVariable Long id,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        return taskService.deleteUserTask(id, user.id())
+                .flatMap(deleted -> deleted
+                        ? Mono.just(ResponseEntity.ok(
+                                "Task was successfully deleted"))
+                        : taskAccessException(id));
+    }
+
+    /**
+     * Creates the strong ETag for a version of a task.
+     * @param id The ID of the task.
+     * @param version The version of the task.
+     * @return The quoted ETag.
+     */
+    private static String taskETag(Long id, Long version) {
+        return "\"task-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Checks if an If-Match header matches the given ETag.
+     * @param ifMatch The If-Match header, which can be a list of ETags or *.
+     * @param eTag The current ETag.
+     * @return `true` if the header matches the ETag, `false` if not.
+     */
+    private static boolean matchesETag(String ifMatch, String eTag) {
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fails with the error for a task that doesn't exist or doesn't belong
+     * to the user making the request.
+     * @param id The ID of the task.
+     * @return A Mono which fails with a NotFoundException if the task doesn't
+     * exist, otherwise an AuthorisationException.
+     */
+    private <T> Mono<T> taskAccessException(Long id) {
+        return taskService.taskExists(id).flatMap(exists -> Mono.error(exists
+                ? new AuthorisationException("Unauthorised - not your task")
+                : new NotFoundException("Cannot find task with ID " + id)));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.todo.reactive;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveTaskRepository
+        extends ReactiveCrudRepository<ReactiveTask, Long> {
+    Flux<ReactiveTask> findAllByUserIdOrderByDueDateAscIdAsc(Long userId);
+}
@@ -0,0 +1,208 @@
+package com.example.todo.reactive;
+
+import com.example.todo.task.NewTaskPayload;
+import com.example.todo.task.TaskDTO;
+import com.example.todo.task.UpdateTaskPayload;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Contains business logic for the task endpoints of the reactive variant.
+ * Changes bump the user's task list version like TaskService, so list ETags
+ * stay correct when both variants share a database. Each change runs in one
+ * transaction with its version bump.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskService {
+    private final ReactiveTaskRepository taskRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveSequences sequences;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+
+    @Autowired
+    public ReactiveTaskService(ReactiveTaskRepository taskRepository,
+            ReactiveUserRepository userRepository,
+            ReactiveSequences sequences,
+            DatabaseClient databaseClient,
+            TransactionalOperator transactionalOperator) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.sequences = sequences;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * Creates a task for the given user with the data from the given payload.
+     * @param payload The data for the new task.
+     * @param userId The ID of the user creating the task.
+     * @return The new task, or an empty Mono if the user doesn't exist.
+     */
+    public Mono<ReactiveTask> createTask(NewTaskPayload payload, Long userId) {
+        return userRepository.existsById(userId)
+                .filter(exists -> exists)
+                .flatMap(exists -> sequences.nextId(
+                        ReactiveSequences.TASK_SEQUENCE))
+                .flatMap(id -> taskRepository.save(new ReactiveTask(
+                        id,
+                        payload.title().trim(),
+                        payload.description() == null
+                                ? null
+                                : payload.description().trim(),
+                        payload.dueDate(),
+                        userId
+                )))
+                .flatMap(task -> bumpTaskListVersion(userId).thenReturn(task))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Gets the task with the given ID if it belongs to the given user.
+     * @param taskId The ID of a task.
+     * @param userId The ID of the user making the request.
+     * @return The task, or an empty Mono if there is no task with that ID
+     * belonging to the user.
+     */
+    public Mono<ReactiveTask> getUserTask(Long taskId, Long userId) {
+        return taskRepository.findById(taskId)
+                .filter(task -> task.getUserId().equals(userId));
+    }
+
+    /**
+     * Checks if a task with the given ID exists.
+     * @param taskId The ID of a task.
+     * @return `true` if the task exists.
+     */
+    public Mono<Boolean> taskExists(Long taskId) {
+        return taskRepository.existsById(taskId);
+    }
+
+    /**
+     * Gets the tasks that belong to the user with the given user ID.
+     * @param userId The ID of a user.
+     * @return The user's tasks.
+     */
+    public Flux<TaskDTO> getUserTasks(Long userId) {
+        return taskRepository.findAllByUserIdOrderByDueDateAscIdAsc(userId)
+                .map(ReactiveTask::toDTO);
+    }
+
+    /**
+     * Gets the version of the task list of the user with the given user ID.
+     * @param userId The ID of a user.
+     * @return The version of the user's task list (0 if the user has never
+     * changed a task).
+     */
+    public Mono<Long> getTaskListVersion(Long userId) {
+        return databaseClient
+                .sql("SELECT version FROM task_list_version "
+                        + "WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get("version", Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Updates the given task with the data in the payload. Nothing is
+     * written if the payload doesn't change the task, and a concurrent change
+     * fails with an OptimisticLockingFailureException.
+     * @param task The task to be updated.
+     * @param payload An object containing the new task data (null fields are
+     * left unchanged).
+     * @return The updated task.
+     */
+    public Mono<ReactiveTask> updateTask(ReactiveTask task,
+            UpdateTaskPayload payload) {
+        if (!applyUpdate(task, payload)) {
+            return Mono.just(task);
+        }
+        return taskRepository.save(task)
+                .flatMap(saved -> bumpTaskListVersion(saved.getUserId())
+                        .thenReturn(saved))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Copies the updated data from the payload onto the given task, the same
+     * way TaskService does.
+     * @param task The task to be updated.
+     * @param payload An object containing the new task data.
+     * @return `true` if any of the task data changed, `false` if not.
+     */
+    private boolean applyUpdate(ReactiveTask task, UpdateTaskPayload payload) {
+        boolean changed = false;
+        if (payload.title() != null
+                && !payload.title().trim().isEmpty()
+                && !payload.title().trim().equals(task.getTitle())) {
+            task.setTitle(payload.title().trim());
+            changed = true;
+        }
+
+        if (payload.description() != null
+                && !payload.description().trim().isEmpty()
+                && !payload.description().trim()
+                        .equals(task.getDescription())) {
+            task.setDescription(payload.description().trim());
+            changed = true;
+        }
+
+        if (payload.dueDate() != null
+                && !payload.dueDate().equals(task.getDueDate())) {
+            task.setDueDate(payload.dueDate());
+            changed = true;
+        }
+
+        if (payload.isComplete() != null
+                && payload.isComplete() != task.isComplete()) {
+            task.setComplete(payload.isComplete());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Deletes the task with the given ID if it belongs to the given user.
+     * @param taskId The ID of a task.
+     * @param userId The ID of the user making the request.
+     * @return `true` if the task was deleted, `false` if there is no task with
+     * that ID belonging to the user.
+     */
+    public Mono<Boolean> deleteUserTask(Long taskId, Long userId) {
+        return getUserTask(taskId, userId)
+                .flatMap(task -> taskRepository.delete(task)
+                        .then(bumpTaskListVersion(userId))
+                        .thenReturn(true))
+                .defaultIfEmpty(false)
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Increments the version of the user's task list, which is created when
+     * the user registers.
+     * @param userId The ID of the user.
+     * @return Completes when the version has been bumped, or fails with an
+     * IllegalStateException if the user has no task list version.
+     */
+    private Mono<Void> bumpTaskListVersion(Long userId) {
+        return databaseClient
+                .sql("UPDATE task_list_version SET version = version + 1 "
+                        + "WHERE user_id = :userId")
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0
+                        ? Mono.empty()
+                        : Mono.error(new IllegalStateException(
+                                "No task list version for user " + userId
+                        )));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.todo.reactive;
+
+import com.example.todo.auth.PasswordHasher;
+import com.example.todo.exceptions.CustomExceptionHandler;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+
+/**
+ * The reactive variant of the API. It serves the same /api/v1/auth and
+ * /api/v1/task contracts as TodoApplication with WebFlux on Netty, R2DBC
+ * repositories and a reactive JWT authentication filter, so idle
+ * connections don't hold a thread each. It only scans this package and
+ * always runs with the "reactive" profile (see application-reactive.properties).
+ * Netty is picked explicitly by {@link ReactiveConfig}, because Tomcat is also
+ * on the classpath for TodoApplication.
+ */
+@SpringBootApplication
+// TodoApplication's component scan also finds this class, so it only
+// applies when the application is reactive
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Import({CustomExceptionHandler.class, PasswordHasher.class})
+public class ReactiveTodoApplication {
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveTodoApplication.class)
+                .profiles(PROFILE)
+                .run(args);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.todo.reactive;
+
+import com.example.todo.user.Role;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * The R2DBC mapping of the users table for the reactive variant.
+ */
+@Table("users")
+public class ReactiveUser {
+    @Id
+    private Long id;
+    private String name;
+    private String email;
+    private String password;
+    private Role role;
+
+    public ReactiveUser() {}
+
+    public ReactiveUser(Long id, String name, String email, String password) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.password = password;
+        this.role = Role.USER;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.todo.reactive;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository
+        extends ReactiveCrudRepository<ReactiveUser, Long> {
+    Mono<ReactiveUser> findByEmail(String email);
+}
@@ -0,0 +1,17 @@
+package com.example.todo.task;
+
+/**
+ * The result of a single change in a batch of task changes. The task is only
+ * included if the change was successful and the task still exists.
+ */
+public record BatchItemResult(Long id, int status, String message,
+        TaskDTO task) {
+    public static BatchItemResult success(int status, TaskDTO task) {
+        return new BatchItemResult(task.Id(), status, null, task);
+    }
+
+    public static BatchItemResult failure(Long id, int status,
+            String message) {
+        return new BatchItemResult(id, status, message, null);
+    }
+}
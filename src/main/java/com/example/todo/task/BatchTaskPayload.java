@@ -0,0 +1,37 @@
+package com.example.todo.task;
+
+import jakarta.validation.Valid;
+
+import java.util.List;
+
+/**
+ * The payload for a batch of task changes. Any of the lists can be left out.
+ */
+public record BatchTaskPayload(
+        @Valid
+        List<NewTaskPayload> create,
+
+        @Valid
+        List<BatchUpdatePayload> update,
+
+        List<Long> delete
+) {
+    public List<NewTaskPayload> create() {
+        return create == null ? List.of() : create;
+    }
+
+    public List<BatchUpdatePayload> update() {
+        return update == null ? List.of() : update;
+    }
+
+    public List<Long> delete() {
+        return delete == null ? List.of() : delete;
+    }
+
+    /**
+     * @return The total number of changes in the batch.
+     */
+    public int size() {
+        return create().size() + update().size() + delete().size();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.todo.task;
+
+import java.util.List;
+
+/**
+ * The results of a batch of task changes, in the same order as the changes
+ * in the payload.
+ */
+public record BatchTaskResponse(List<BatchItemResult> created,
+        List<BatchItemResult> updated, List<BatchItemResult> deleted) {}
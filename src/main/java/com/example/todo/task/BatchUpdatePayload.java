@@ -0,0 +1,22 @@
+package com.example.todo.task;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+public record BatchUpdatePayload(
+        @NotNull(message = "Missing task ID")
+        Long id,
+
+        String title,
+
+        String description,
+
+        LocalDate dueDate,
+
+        Boolean isComplete
+) {
+    public UpdateTaskPayload toUpdatePayload() {
+        return new UpdateTaskPayload(title, description, dueDate, isComplete);
+    }
+}
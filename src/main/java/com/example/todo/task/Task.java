@@ -2,17 +2,36 @@ package com.example.todo.task;
 
 import com.example.todo.user.User;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 
 @Entity(name = "Task")
-@Table(name = "task")
+// Updates only write the changed columns
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Support keyset pagination of a user's tasks by (due_date, id), with or
+// without a filter on their status
+@Table(name = "task", indexes = {
+        @Index(
+                name = "idx_task_user_id_due_date_id",
+                columnList = "user_id, due_date, id"
+        ),
+        @Index(
+                name = "idx_task_user_id_is_complete_due_date_id",
+                columnList = "user_id, is_complete, due_date, id"
+        )
+})
 public class Task {
     @Id
     @SequenceGenerator(
             name = "task_sequence",
             sequenceName = "task_sequence",
-            allocationSize = 1
+            // Hibernate's pooled optimizer hands out 50 IDs per nextval
+            allocationSize = 50
     )
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
@@ -24,11 +43,17 @@ public class Task {
     private String description;
     @Column(name = "due_date", nullable = false)
     private LocalDate dueDate;
-    @Column(nullable = false)
+    @Column(name = "is_complete", nullable = false)
     private boolean isComplete;
-    @ManyToOne
+    // Lazy so reading a task doesn't load its user (getId() on the proxy
+    // doesn't initialise it)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+    // Bumped by Hibernate on every update and used for the task's ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
 
     public Task() {}
 
@@ -88,8 +113,17 @@ public class Task {
         this.user = user;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public TaskDTO toDTO() {
         return new TaskDTO(this.id, this.user.getId(), this.title,
-                this.description, this.dueDate, this.isComplete);
+                this.description, this.dueDate, this.isComplete,
+                this.version);
     }
 }
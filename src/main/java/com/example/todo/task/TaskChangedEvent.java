@@ -0,0 +1,23 @@
+package com.example.todo.task;
+
+/**
+ * An event published by the {@link TaskService} whenever one of a user's
+ * tasks is created, updated or deleted. Listeners that keep derived data in
+ * memory (e.g. the {@link TaskSearchIndex}) handle it after the transaction
+ * commits, so changes that are rolled back are never applied.
+ * @param userId The ID of the user that owns the task.
+ * @param previous The task data before the change (null if the task was
+ * created).
+ * @param task The changed task (null if the task was deleted).
+ */
+public record TaskChangedEvent(Long userId, TaskDTO previous, Task task) {
+    /**
+     * Gets the task data after the change. This should be called after the
+     * transaction commits, when the version of an updated task has been
+     * incremented.
+     * @return The task data (null if the task was deleted).
+     */
+    public TaskDTO current() {
+        return task == null ? null : task.toDTO();
+    }
+}
@@ -2,15 +2,27 @@ package com.example.todo.task;
 
 import com.example.todo.auth.AuthUtils;
 import com.example.todo.exceptions.AuthorisationException;
+import com.example.todo.exceptions.ConflictException;
 import com.example.todo.exceptions.NotFoundException;
 import com.example.todo.exceptions.BadRequestException;
 import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -19,13 +31,40 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/v1/task")
 public class TaskController {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final MediaType NDJSON = MediaType.valueOf(
+            "application/x-ndjson"
+    );
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+    private static final int DEFAULT_SUGGESTION_LIMIT = 5;
+    private static final int MAX_SUGGESTION_LIMIT = 20;
+
     private final TaskService taskService;
     private final AuthUtils authUtils;
+    private final UserRepository userRepository;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskTitleSuggester taskTitleSuggester;
+    private final TaskStatsCache taskStatsCache;
+    private final ObjectWriter taskWriter;
 
     @Autowired
-    public TaskController(TaskService taskService, AuthUtils authUtils) {
+    public TaskController(TaskService taskService, AuthUtils authUtils,
+            UserRepository userRepository,
+            TaskSearchIndex taskSearchIndex,
+            TaskTitleSuggester taskTitleSuggester,
+            TaskStatsCache taskStatsCache, ObjectMapper objectMapper) {
         this.taskService = taskService;
         this.authUtils = authUtils;
+        this.userRepository = userRepository;
+        this.taskSearchIndex = taskSearchIndex;
+        this.taskTitleSuggester = taskTitleSuggester;
+        this.taskStatsCache = taskStatsCache;
+        // The response stream is closed by the container, not after each task
+        this.taskWriter = objectMapper.writerFor(TaskDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     /**
@@ -33,60 +72,302 @@ public class TaskController {
      * a task with the given payload in the request body.
      * @param payload The payload from the request body.
      * @return An object with data for the created task.
-     * @throws BadRequestException If the user making the request doesn't exist
-     * in the database.
      */
     @PostMapping
     public ResponseEntity<TaskDTO> createTask(
             @RequestBody @Valid NewTaskPayload payload) {
-        User user = authUtils.getUserFromAuth().orElseThrow(() -> {
-            return new BadRequestException("Invalid user");
-        });
-        Task newTask = taskService.createTask(payload, user);
+        Task newTask = taskService.createTask(payload, getAuthUserReference());
         return new ResponseEntity<>(newTask.toDTO(), HttpStatus.CREATED);
     }
 
+    /**
+     * Handles incoming POST requests for the /api/v1/task/batch endpoint by
+     * creating, updating and deleting the tasks in the payload in a single
+     * transaction.
+     * @param payload The batch of changes from the request body.
+     * @return The result of each change in the batch.
+     * @throws BadRequestException If the batch is too large.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTaskResponse> applyBatch(
+            @RequestBody @Valid BatchTaskPayload payload) {
+        if (payload.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(
+                    "A batch can't have more than " + MAX_BATCH_SIZE
+                            + " changes"
+            );
+        }
+        return ResponseEntity.ok(
+                taskService.applyBatch(payload, getAuthUserReference())
+        );
+    }
+
     /**
      * Handles incoming GET requests for the /api/v1/task/{id} endpoint by
      * getting the data for task with the given ID from the endpoint path
      * variable.
+     * If the request has an If-None-Match header, only the version of the
+     * task is read first and a 304 response is sent if it still matches.
      * @param id The ID from the endpoint.
-     * @return An object with data for the task with that ID.
+     * @param request The request, to check the If-None-Match header.
+     * @return An object with data for the task with that ID, or null if a 304
+     * response has been sent.
      * @throws NotFoundException If there is no task with that ID.
      * @throws AuthorisationException If the task with that ID doesn't belong
      * to the user making the request.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<TaskDTO> getTask(@PathVariable Long id) {
-        Task task = taskService.getTaskById(id).orElseThrow(() -> {
-            return new NotFoundException("Cannot find task with ID " + id);
-        });
+    public ResponseEntity<TaskDTO> getTask(@PathVariable Long id,
+            WebRequest request) {
         Long userId = authUtils.getUserIdFromAuth();
-        if (!userId.equals(task.getUser().getId())) {
-            throw new AuthorisationException("Unauthorised - not your task");
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            Long version = taskService.getUserTaskVersion(id, userId)
+                    .orElseThrow(() -> taskAccessException(id));
+            if (request.checkNotModified(taskETag(id, version))) {
+                return null;
+            }
         }
-        return ResponseEntity.ok(task.toDTO());
+        TaskDTO task = taskService.getUserTaskDTO(id, userId)
+                .orElseThrow(() -> taskAccessException(id));
+        return ResponseEntity.ok()
+                .eTag(taskETag(task.Id(), task.version()))
+                .body(task);
     }
 
     /**
      * Handles incoming GET requests for the /api/v1/task/user/{userId} endpoint
-     * by getting all the tasks that belong to the user with that user ID.
+     * by getting all the tasks that belong to the user with that user ID,
+     * optionally filtered and sorted by the query parameters. A 304 response
+     * is sent if the If-None-Match header matches the version of the user's
+     * task list, without reading the tasks.
      * @param userId The user ID from the endpoint.
-     * @return A list of all the tasks that belong to the user with that ID.
+     * @param status Only tasks with this status: complete, incomplete or all
+     * (optional).
+     * @param dueAfter Only tasks due after this date (optional).
+     * @param dueBefore Only tasks due before this date (optional).
+     * @param overdue Only incomplete tasks due before today if true
+     * (optional).
+     * @param sort dueDate,asc (the default) or dueDate,desc (optional).
+     * @param request The request, to check the If-None-Match header.
+     * @return A list of the tasks that belong to the user with that ID, or
+     * null if a 304 response has been sent.
      * @throws AuthorisationException If the user ID of the user making the
      * request is not the same as the user ID from the endpoint.
+     * @throws BadRequestException If a filter is invalid.
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<TaskDTO>> getUserTasks(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String dueAfter,
+            @RequestParam(required = false) String dueBefore,
+            @RequestParam(required = false) String overdue,
+            @RequestParam(required = false) String sort,
+            WebRequest request) {
+        Long authUserId = authUtils.getUserIdFromAuth();
+        if (!authUserId.equals(userId)) {
+            throw new AuthorisationException("Unauthorised");
+        }
+        TaskFilter filter = TaskFilter.of(status, dueAfter, dueBefore,
+                overdue, sort, LocalDate.now());
+        long version = taskService.getTaskListVersion(userId);
+        if (request.checkNotModified(taskListETag(userId, version, filter))) {
+            return null;
+        }
+        if (!filter.equals(TaskFilter.NONE)) {
+            return ResponseEntity.ok()
+                    .eTag(taskListETag(userId, version, filter))
+                    .body(taskService.getUserTasks(userId, filter));
+        }
+        // The unfiltered list is cached with the version it was read at, so
+        // the ETag always matches the cached tasks
+        TaskList tasks = taskService.getUserTasks(userId, version);
+        return ResponseEntity.ok()
+                .eTag(taskListETag(userId, tasks.version(), filter))
+                .body(tasks.tasks());
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/user/{userId} endpoint
+     * with a limit by getting a page of the tasks that belong to the user with
+     * that user ID, ordered by due date. The tasks can be filtered and sorted
+     * with the same query parameters as the whole list.
+     * @param userId The user ID from the endpoint.
+     * @param limit The maximum number of tasks in the page.
+     * @param cursor The next cursor from the previous page (if any).
+     * @param status Only tasks with this status (optional).
+     * @param dueAfter Only tasks due after this date (optional).
+     * @param dueBefore Only tasks due before this date (optional).
+     * @param overdue Only incomplete tasks due before today if true
+     * (optional).
+     * @param sort dueDate,asc (the default) or dueDate,desc (optional).
+     * @param request The request, to check the If-None-Match header.
+     * @return A page of tasks and the cursor for the next page, or null if a
+     * 304 response has been sent.
+     * @throws AuthorisationException If the user ID of the user making the
+     * request is not the same as the user ID from the endpoint.
+     * @throws BadRequestException If the limit, cursor or a filter is
+     * invalid.
+     */
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    public ResponseEntity<TaskPage> getUserTaskPage(@PathVariable Long userId,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String dueAfter,
+            @RequestParam(required = false) String dueBefore,
+            @RequestParam(required = false) String overdue,
+            @RequestParam(required = false) String sort,
+            WebRequest request) {
+        Long authUserId = authUtils.getUserIdFromAuth();
+        if (!authUserId.equals(userId)) {
+            throw new AuthorisationException("Unauthorised");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE
+            );
+        }
+        TaskCursor taskCursor = cursor == null
+                ? null
+                : TaskCursor.decode(cursor);
+        TaskFilter filter = TaskFilter.of(status, dueAfter, dueBefore,
+                overdue, sort, LocalDate.now());
+        // The page only changes when the task list changes
+        String eTag = taskListETag(userId,
+                taskService.getTaskListVersion(userId), filter);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(taskService.getUserTaskPage(userId, filter, taskCursor,
+                        limit));
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/search endpoint by
+     * searching the titles and descriptions of the tasks that belong to the
+     * user making the request. The search uses the in-memory
+     * {@link TaskSearchIndex}, so tasks are only read from the database for
+     * the user's first search.
+     * @param q The search query. Every word has to match a word in the task,
+     * or the start of one.
+     * @param limit The maximum number of tasks to return.
+     * @return The best matching tasks, best first.
+     * @throws BadRequestException If the query is missing or too long, or
+     * the limit is invalid.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<TaskDTO>> searchTasks(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("Missing search query");
+        }
+        if (q.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new BadRequestException(
+                    "Search query can't be longer than "
+                            + MAX_SEARCH_QUERY_LENGTH + " characters"
+            );
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException(
+                    "Limit must be between 1 and " + MAX_PAGE_SIZE
+            );
+        }
+        Long userId = authUtils.getUserIdFromAuth();
+        return ResponseEntity.ok(taskSearchIndex.search(userId, q, limit));
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/suggest endpoint by
+     * suggesting titles from the tasks of the user making the request that
+     * start with the given prefix, for autocomplete. The titles are ranked
+     * by how often and how recently they were used, and are served from
+     * memory (see {@link TaskTitleSuggester}).
+     * @param prefix What the user has typed so far.
+     * @param limit The maximum number of titles to return.
+     * @return The suggested titles, best first.
+     * @throws BadRequestException If the prefix is missing or too long, or
+     * the limit is invalid.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestTitles(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "" + DEFAULT_SUGGESTION_LIMIT)
+            int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new BadRequestException("Missing prefix");
+        }
+        if (prefix.length() > MAX_SEARCH_QUERY_LENGTH) {
+            throw new BadRequestException(
+                    "Prefix can't be longer than " + MAX_SEARCH_QUERY_LENGTH
+                            + " characters"
+            );
+        }
+        if (limit < 1 || limit > MAX_SUGGESTION_LIMIT) {
+            throw new BadRequestException(
+                    "Limit must be between 1 and " + MAX_SUGGESTION_LIMIT
+            );
+        }
+        Long userId = authUtils.getUserIdFromAuth();
+        return ResponseEntity.ok(
+                taskTitleSuggester.suggest(userId, prefix, limit)
+        );
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/stats endpoint by
+     * counting the tasks of the user making the request. The counts are kept
+     * in memory (see {@link TaskStatsCache}), so the tasks are only read
+     * from the database the first time.
+     * @return The total, completed, open, overdue and due today counts.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStats> getTaskStats() {
+        Long userId = authUtils.getUserIdFromAuth();
+        return ResponseEntity.ok(taskStatsCache.getStats(userId));
+    }
+
+    /**
+     * Handles incoming GET requests for the /api/v1/task/user/{userId}/export
+     * endpoint by streaming all the tasks that belong to the user with that
+     * user ID as newline-delimited JSON (one task per line). The tasks are
+     * written as they are read from the database instead of being loaded
+     * into a list first.
+     * @param userId The user ID from the endpoint.
+     * @return A streaming response body with the tasks.
+     * @throws AuthorisationException If the user ID of the user making the
+     * request is not the same as the user ID from the endpoint.
+     */
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportUserTasks(
             @PathVariable Long userId) {
         Long authUserId = authUtils.getUserIdFromAuth();
         if (!authUserId.equals(userId)) {
             throw new AuthorisationException("Unauthorised");
         }
-        List<TaskDTO> tasks = taskService.getUserTasks(userId).stream()
-                .map(Task::toDTO)
-                .toList();
-        return ResponseEntity.ok(tasks);
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            try {
+                taskService.exportUserTasks(userId, task -> {
+                    try {
+                        taskWriter.writeValue(outputStream, task);
+                        outputStream.write('\n');
+                        if (++written[0] % EXPORT_FLUSH_INTERVAL == 0) {
+                            outputStream.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     /**
@@ -94,23 +375,68 @@ public class TaskController {
      * updating the task with that ID.
      * @param id The ID from the endpoint.
      * @param payload The payload from the request body.
+     * @param ifMatch The ETag of the version of the task the client changed
+     * (optional).
      * @return An object of the updated task with that ID.
      * @throws NotFoundException If there is no task with that ID.
      * @throws AuthorisationException If the task with that ID doesn't belong to
      * the user making the request.
+     * @throws ConflictException If the task doesn't match the If-Match header.
      */
     @PutMapping("/{id}")
     public ResponseEntity<TaskDTO> updateTask(@PathVariable Long id,
-              @RequestBody @Valid UpdateTaskPayload payload) {
-        Task task = taskService.getTaskById(id).orElseThrow(() -> {
-            return new NotFoundException("Cannot find task with ID " + id);
-        });
+              @RequestBody @Valid UpdateTaskPayload payload,
+              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+              String ifMatch) {
+        return updateUserTask(id, payload, ifMatch);
+    }
+
+    /**
+     * Handles incoming PATCH requests for the /api/v1/task/{id} endpoint by
+     * updating only the fields of the task with that ID that are in the
+     * payload. If the request has an If-Match header, the update is only made
+     * if the task is still at that version.
+     * @param id The ID from the endpoint.
+     * @param payload The payload from the request body.
+     * @param ifMatch The ETag of the version of the task the client changed
+     * (optional).
+     * @return An object of the updated task with that ID.
+     * @throws NotFoundException If there is no task with that ID.
+     * @throws AuthorisationException If the task with that ID doesn't belong to
+     * the user making the request.
+     * @throws ConflictException If the task doesn't match the If-Match header.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<TaskDTO> patchTask(@PathVariable Long id,
+            @RequestBody @Valid UpdateTaskPayload payload,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            String ifMatch) {
+        return updateUserTask(id, payload, ifMatch);
+    }
+
+    /**
+     * Updates the task with the given ID if it belongs to the user making the
+     * request and matches the If-Match header. A concurrent change after the
+     * task is read is caught by the versioned UPDATE and also returns 409.
+     * @param id The ID of the task.
+     * @param payload The payload from the request body.
+     * @param ifMatch The If-Match header (null if it wasn't sent).
+     * @return An object of the updated task with its new ETag.
+     */
+    private ResponseEntity<TaskDTO> updateUserTask(Long id,
+            UpdateTaskPayload payload, String ifMatch) {
         Long userId = authUtils.getUserIdFromAuth();
-        if (!userId.equals(task.getUser().getId())) {
-            throw new AuthorisationException("Unauthorised - not your task");
+        Task task = taskService.getUserTask(id, userId)
+                .orElseThrow(() -> taskAccessException(id));
+        if (ifMatch != null
+                && !matchesETag(ifMatch, taskETag(id, task.getVersion()))) {
+            throw new ConflictException("Task has been changed since version "
+                    + ifMatch);
         }
         Task updatedTask = taskService.updateTask(task, payload);
-        return ResponseEntity.ok(updatedTask.toDTO());
+        return ResponseEntity.ok()
+                .eTag(taskETag(id, updatedTask.getVersion()))
+                .body(updatedTask.toDTO());
     }
 
     /**
@@ -124,14 +450,75 @@ public class TaskController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deleteTask(@PathVariable Long id) {
-        Task task = taskService.getTaskById(id).orElseThrow(() -> {
-            return new NotFoundException("Cannot find task with ID " + id);
-        });
         Long userId = authUtils.getUserIdFromAuth();
-        if (!userId.equals(task.getUser().getId())) {
-            throw new AuthorisationException("Unauthorised - not your task");
+        if (!taskService.deleteUserTask(id, userId)) {
+            throw taskAccessException(id);
         }
-        taskService.deleteTask(id);
         return ResponseEntity.ok("Task was successfully deleted");
     }
+
+    /**
+     * Gets a reference to the user making the request from the user ID in
+     * their token, so tasks can be created for them without loading the
+     * user.
+     * @return A User proxy which only has the user's ID.
+     */
+    private User getAuthUserReference() {
+        return userRepository.getReferenceById(authUtils.getUserIdFromAuth());
+    }
+
+    /**
+     * Creates the strong ETag for a version of a task.
+     * @param id The ID of the task.
+     * @param version The version of the task.
+     * @return The quoted ETag.
+     */
+    private static String taskETag(Long id, Long version) {
+        return "\"task-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Checks if an If-Match header matches the given ETag.
+     * @param ifMatch The If-Match header, which can be a list of ETags or *.
+     * @param eTag The current ETag.
+     * @return `true` if the header matches the ETag, `false` if not.
+     */
+    private static boolean matchesETag(String ifMatch, String eTag) {
+        for (String candidate : ifMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the strong ETag for a version of a user's task list. A list of
+     * overdue tasks also changes with the date, so the date is part of its
+     * ETag.
+     * @param userId The ID of the user.
+     * @param version The version of the task list.
+     * @param filter The filter of the list.
+     * @return The quoted ETag.
+     */
+    private static String taskListETag(Long userId, long version,
+            TaskFilter filter) {
+        String date = filter.overdue() ? "-" + filter.dueBefore() : "";
+        return "\"tasks-" + userId + "-" + version + date + "\"";
+    }
+
+    /**
+     * Creates the exception for a task that wasn't found by an owner-scoped
+     * query. Only this failure path checks if the task exists at all.
+     * @param id The ID of the task.
+     * @return An AuthorisationException if the task belongs to another user,
+     * otherwise a NotFoundException.
+     */
+    private RuntimeException taskAccessException(Long id) {
+        if (taskService.taskExists(id)) {
+            return new AuthorisationException("Unauthorised - not your task");
+        }
+        return new NotFoundException("Cannot find task with ID " + id);
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.todo.task;
+
+import java.time.LocalDate;
+
+/**
+ * The number of a user's tasks with the same status and due date.
+ * @param isComplete The status of the tasks.
+ * @param dueDate The due date of the tasks.
+ * @param count The number of tasks.
+ */
+public record TaskCount(boolean isComplete, LocalDate dueDate, long count) {
+}
@@ -0,0 +1,113 @@
+package com.example.todo.task;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running counts of one user's tasks, from which their {@link TaskStats} are
+ * read without touching the database.
+ * <p>
+ * Incomplete tasks are either counted as overdue, or counted by due date if
+ * they are due today or later. When the date moves on, the counts for the
+ * days that have passed are moved into the overdue count, so the overdue and
+ * due today counts roll over at midnight by only looking at those days.
+ */
+class TaskCounters {
+    private long total;
+    private long completed;
+    private long overdue;
+    // Incomplete tasks due on or after today, by due date
+    private final TreeMap<LocalDate, Long> openByDueDate = new TreeMap<>();
+    private LocalDate today;
+    private long changes;
+
+    /**
+     * Creates counters with no tasks.
+     * @param today The current date.
+     */
+    TaskCounters(LocalDate today) {
+        this.today = today;
+    }
+
+    /**
+     * Adds tasks with the same status and due date to the counts (or removes
+     * them if the count is negative), e.g. when the counters are loaded.
+     * @param isComplete The status of the tasks.
+     * @param dueDate The due date of the tasks.
+     * @param count The number of tasks.
+     */
+    synchronized void add(boolean isComplete, LocalDate dueDate, long count) {
+        total += count;
+        if (isComplete) {
+            completed += count;
+        } else if (dueDate.isBefore(today)) {
+            overdue += count;
+        } else {
+            openByDueDate.merge(dueDate, count,
+                    (current, added) -> current + added == 0
+                            ? null
+                            : current + added);
+        }
+    }
+
+    /**
+     * Applies a change to one of the user's tasks.
+     * @param previous The task before the change (null if it was created).
+     * @param current The task after the change (null if it was deleted).
+     * @param today The current date.
+     */
+    synchronized void apply(TaskDTO previous, TaskDTO current,
+            LocalDate today) {
+        rollOver(today);
+        if (previous != null) {
+            add(previous.isComplete(), previous.dueDate(), -1);
+        }
+        if (current != null) {
+            add(current.isComplete(), current.dueDate(), 1);
+        }
+        changes++;
+    }
+
+    /**
+     * Gets the stats as of the given date.
+     * @param today The current date.
+     * @return The stats.
+     */
+    synchronized TaskStats stats(LocalDate today) {
+        rollOver(today);
+        return new TaskStats(
+                total,
+                completed,
+                total - completed,
+                overdue,
+                openByDueDate.getOrDefault(this.today, 0L)
+        );
+    }
+
+    /**
+     * Gets the number of changes applied since the counters were created, so
+     * a reconciliation can tell if the counters changed while it was
+     * counting the tasks in the database.
+     * @return The number of changes.
+     */
+    synchronized long changes() {
+        return changes;
+    }
+
+    /**
+     * Moves the incomplete tasks due on the days before the given date into
+     * the overdue count. Dates before the current date are ignored.
+     */
+    private void rollOver(LocalDate now) {
+        if (!now.isAfter(today)) {
+            return;
+        }
+        Map<LocalDate, Long> passed = openByDueDate.headMap(now);
+        for (long count : passed.values()) {
+            overdue += count;
+        }
+        passed.clear();
+        today = now;
+    }
+}
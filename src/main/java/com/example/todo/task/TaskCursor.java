@@ -0,0 +1,56 @@
+package com.example.todo.task;
+
+import com.example.todo.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * The position of the last task in a page of tasks ordered by due date and
+ * ID. It is sent to the client as an opaque string which is used to get the
+ * next page of tasks.
+ */
+public record TaskCursor(LocalDate dueDate, Long id) {
+    /**
+     * Creates a cursor pointing at the given task.
+     * @param task The last task in a page.
+     * @return A cursor for the task.
+     */
+    public static TaskCursor from(TaskDTO task) {
+        return new TaskCursor(task.dueDate(), task.Id());
+    }
+
+    /**
+     * Decodes a cursor sent by a client.
+     * @param cursor The encoded cursor.
+     * @return The decoded cursor.
+     * @throws BadRequestException If the cursor isn't valid.
+     */
+    public static TaskCursor decode(String cursor) {
+        try {
+            String value = new String(
+                    Base64.getUrlDecoder().decode(cursor),
+                    StandardCharsets.UTF_8
+            );
+            int separator = value.indexOf(':');
+            return new TaskCursor(
+                    LocalDate.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Encodes the cursor so it can be sent to a client.
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String value = dueDate + ":" + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -5,7 +5,7 @@ import java.time.LocalDate;
 /**
  * A Data Transfer Object for a Task which is used to send task data to the
  * client. It limits the associated user data to just the ID of the user that
- * created the task.
+ * created the task. The version changes every time the task is updated.
  */
 public record TaskDTO(Long Id, Long userId, String title, String description,
-        LocalDate dueDate, boolean isComplete) {}
+        LocalDate dueDate, boolean isComplete, Long version) {}
@@ -0,0 +1,132 @@
+package com.example.todo.task;
+
+import com.example.todo.exceptions.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * A filter and sort order for a user's tasks, from the query parameters of
+ * the task list endpoints. The due date bounds are exclusive and overdue
+ * tasks are the incomplete tasks due before today.
+ * @param isComplete Only tasks with this status (null for any status).
+ * @param dueAfter Only tasks due after this date (null for no lower bound).
+ * @param dueBefore Only tasks due before this date (null for no upper bound).
+ * @param overdue Whether only overdue tasks were asked for, which makes the
+ * result depend on the current date.
+ * @param descending Whether the tasks are ordered by latest due date first.
+ */
+public record TaskFilter(Boolean isComplete, LocalDate dueAfter,
+        LocalDate dueBefore, boolean overdue, boolean descending) {
+    public static final TaskFilter NONE = new TaskFilter(null, null, null,
+            false, false);
+
+    /**
+     * Parses a filter from query parameters, any of which can be null.
+     * @param status "complete" or "incomplete" (or "all").
+     * @param dueAfter An ISO date.
+     * @param dueBefore An ISO date.
+     * @param overdue "true" or "false".
+     * @param sort "dueDate", "dueDate,asc" or "dueDate,desc".
+     * @param today The current date, for overdue tasks.
+     * @return The filter.
+     * @throws BadRequestException If any of the parameters is invalid.
+     */
+    public static TaskFilter of(String status, String dueAfter,
+            String dueBefore, String overdue, String sort, LocalDate today) {
+        Boolean isComplete = parseStatus(status);
+        LocalDate after = parseDate("dueAfter", dueAfter);
+        LocalDate before = parseDate("dueBefore", dueBefore);
+        boolean isOverdue = parseBoolean("overdue", overdue);
+        if (isOverdue) {
+            if (Boolean.TRUE.equals(isComplete)) {
+                throw new BadRequestException(
+                        "Overdue tasks can't be complete"
+                );
+            }
+            isComplete = false;
+            before = before == null || today.isBefore(before) ? today : before;
+        }
+        return new TaskFilter(isComplete, after, before, isOverdue,
+                parseDescending(sort));
+    }
+
+    /**
+     * Parses the status parameter, ignoring case.
+     * @param status "complete", "incomplete", "all" or null.
+     * @return Whether only complete or incomplete tasks are wanted (null for
+     * any status).
+     * @throws BadRequestException If the status isn't one of the above.
+     */
+    private static Boolean parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status.toLowerCase(Locale.ROOT)) {
+            case "all" -> null;
+            case "complete" -> true;
+            case "incomplete" -> false;
+            default -> throw new BadRequestException(
+                    "Status must be complete, incomplete or all"
+            );
+        };
+    }
+
+    /**
+     * Parses an ISO date parameter.
+     * @param name The name of the parameter, for the error message.
+     * @param date The date (yyyy-mm-dd) or null.
+     * @return The date (null if there wasn't one).
+     * @throws BadRequestException If the date isn't a valid ISO date.
+     */
+    private static LocalDate parseDate(String name, String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(name + " must be a date (yyyy-mm-dd)");
+        }
+    }
+
+    /**
+     * Parses a boolean parameter, ignoring case. Unlike
+     * {@link Boolean#parseBoolean(String)}, anything other than "true" or
+     * "false" is rejected.
+     * @param name The name of the parameter, for the error message.
+     * @param value "true", "false" or null.
+     * @return Whether the value is "true" (false if there wasn't one).
+     * @throws BadRequestException If the value isn't "true" or "false".
+     */
+    private static boolean parseBoolean(String name, String value) {
+        if (value == null || value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        throw new BadRequestException(name + " must be true or false");
+    }
+
+    /**
+     * Parses the sort parameter, ignoring case and spaces. Tasks can only be
+     * sorted by due date, ascending by default.
+     * @param sort "dueDate", "dueDate,asc", "dueDate,desc" or null.
+     * @return Whether the tasks are sorted by latest due date first.
+     * @throws BadRequestException If the sort isn't one of the above.
+     */
+    private static boolean parseDescending(String sort) {
+        if (sort == null) {
+            return false;
+        }
+        return switch (sort.replace(" ", "").toLowerCase(Locale.ROOT)) {
+            case "duedate", "duedate,asc" -> false;
+            case "duedate,desc" -> true;
+            default -> throw new BadRequestException(
+                    "Sort must be dueDate,asc or dueDate,desc"
+            );
+        };
+    }
+}
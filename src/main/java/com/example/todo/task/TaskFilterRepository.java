@@ -0,0 +1,23 @@
+package com.example.todo.task;
+
+import java.util.List;
+
+/**
+ * A fragment of the {@link TaskRepository} for reading a user's tasks with a
+ * {@link TaskFilter}, where the query depends on which filters are set.
+ */
+public interface TaskFilterRepository {
+    /**
+     * Gets the tasks that belong to the user with the given user ID and
+     * match the filter, ordered by due date and ID in the filter's
+     * direction, starting after the given cursor.
+     * @param userId The ID of a user.
+     * @param filter The filter and sort order.
+     * @param after The position of the last task in the previous page, or
+     * null to start from the first task.
+     * @param limit The maximum number of tasks (0 for all of them).
+     * @return The matching tasks.
+     */
+    List<TaskDTO> findAllByUserId(Long userId, TaskFilter filter,
+            TaskCursor after, int limit);
+}
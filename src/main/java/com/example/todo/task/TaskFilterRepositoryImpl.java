@@ -0,0 +1,78 @@
+package com.example.todo.task;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the query for a {@link TaskFilter} with the Criteria API. Only the
+ * predicates for the filters that are set are added, so every query is a
+ * range of the (user_id, is_complete, due_date, id) index when the status is
+ * set, or of the (user_id, due_date, id) index when it isn't, and the order
+ * by due date and ID comes from the index instead of a sort.
+ */
+class TaskFilterRepositoryImpl implements TaskFilterRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TaskDTO> findAllByUserId(Long userId, TaskFilter filter,
+            TaskCursor after, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskDTO> query = builder.createQuery(TaskDTO.class);
+        Root<Task> task = query.from(Task.class);
+        Path<Long> id = task.get("id");
+        Path<Long> taskUserId = task.get("user").get("id");
+        Path<LocalDate> dueDate = task.get("dueDate");
+        Path<Boolean> isComplete = task.get("isComplete");
+        query.select(builder.construct(TaskDTO.class, id, taskUserId,
+                task.get("title"), task.get("description"), dueDate,
+                isComplete, task.get("version")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.equal(taskUserId, userId));
+        if (filter.isComplete() != null) {
+            predicates.add(builder.equal(isComplete, filter.isComplete()));
+        }
+        if (filter.dueAfter() != null) {
+            predicates.add(builder.greaterThan(dueDate, filter.dueAfter()));
+        }
+        if (filter.dueBefore() != null) {
+            predicates.add(builder.lessThan(dueDate, filter.dueBefore()));
+        }
+        if (after != null) {
+            predicates.add(filter.descending()
+                    ? builder.or(
+                            builder.lessThan(dueDate, after.dueDate()),
+                            builder.and(
+                                    builder.equal(dueDate, after.dueDate()),
+                                    builder.lessThan(id, after.id())))
+                    : builder.or(
+                            builder.greaterThan(dueDate, after.dueDate()),
+                            builder.and(
+                                    builder.equal(dueDate, after.dueDate()),
+                                    builder.greaterThan(id, after.id()))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        List<Order> order = filter.descending()
+                ? List.of(builder.desc(dueDate), builder.desc(id))
+                : List.of(builder.asc(dueDate), builder.asc(id));
+        query.orderBy(order);
+
+        TypedQuery<TaskDTO> typedQuery = entityManager.createQuery(query);
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.todo.task;
+
+import java.util.List;
+
+/**
+ * A user's tasks with the version of the task list they were read at. The
+ * tasks are read after the version, so they are never older than it.
+ */
+public record TaskList(long version, List<TaskDTO> tasks) {}
@@ -0,0 +1,42 @@
+package com.example.todo.task;
+
+import jakarta.persistence.*;
+
+/**
+ * A counter for each user that is bumped every time one of their tasks is
+ * created, updated or deleted, so the version of a user's task list can be
+ * checked without reading the tasks. It is created (at 0) when the user
+ * registers, so a change only ever has to update it.
+ */
+@Entity(name = "TaskListVersion")
+@Table(name = "task_list_version")
+public class TaskListVersion {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(nullable = false)
+    private long version;
+
+    public TaskListVersion() {}
+
+    public TaskListVersion(Long userId, long version) {
+        this.userId = userId;
+        this.version = version;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
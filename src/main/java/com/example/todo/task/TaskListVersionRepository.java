@@ -0,0 +1,28 @@
+package com.example.todo.task;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * A Repository for the version of each user's task list to handle database
+ * interactions with the task_list_version table.
+ */
+@Repository
+public interface TaskListVersionRepository
+        extends JpaRepository<TaskListVersion, Long> {
+    @Query("SELECT v.version FROM TaskListVersion v WHERE v.userId = ?1")
+    Optional<Long> findVersionByUserId(Long userId);
+
+    @Modifying
+    @Query("INSERT INTO TaskListVersion (userId, version) VALUES (?1, 0L)")
+    int createVersion(Long userId);
+
+    @Modifying
+    @Query("UPDATE TaskListVersion v SET v.version = v.version + 1 "
+            + "WHERE v.userId = ?1")
+    int incrementVersion(Long userId);
+}
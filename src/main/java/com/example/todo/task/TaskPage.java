@@ -0,0 +1,9 @@
+package com.example.todo.task;
+
+import java.util.List;
+
+/**
+ * A page of tasks with the cursor for the next page. The next cursor is null
+ * if there are no more tasks.
+ */
+public record TaskPage(List<TaskDTO> tasks, String nextCursor) {}
@@ -1,16 +1,70 @@
 package com.example.todo.task;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * A Repository for tasks to handle database interactions with the task table.
+ * <p>
+ * Read-only queries select straight into TaskDTOs, which only reads the
+ * user_id column of the task instead of loading the User entity. Filtered
+ * queries are built in the {@link TaskFilterRepository} fragment.
  */
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
-    @Query("SELECT t FROM Task t WHERE t.user.id = ?1")
-    List<Task> findAllByUserId(Long userId);
+public interface TaskRepository extends JpaRepository<Task, Long>,
+        TaskFilterRepository {
+    String TASK_DTO = "new com.example.todo.task.TaskDTO(t.id, t.user.id, "
+            + "t.title, t.description, t.dueDate, t.isComplete, t.version)";
+
+    // In the same order as filtered lists and pages
+    @Query("SELECT " + TASK_DTO + " FROM Task t WHERE t.user.id = ?1 "
+            + "ORDER BY t.dueDate, t.id")
+    List<TaskDTO> findAllByUserId(Long userId);
+
+    // Oldest first, so the titles can be replayed in the order they were used
+    @Query("SELECT t.title FROM Task t WHERE t.user.id = ?1 ORDER BY t.id")
+    List<String> findTitlesByUserId(Long userId);
+
+    // Served from the (user_id, is_complete, due_date, id) index
+    @Query("SELECT new com.example.todo.task.TaskCount(t.isComplete, "
+            + "t.dueDate, COUNT(t)) FROM Task t WHERE t.user.id = ?1 "
+            + "GROUP BY t.isComplete, t.dueDate")
+    List<TaskCount> countByUserId(Long userId);
+
+    @Query("SELECT t.version FROM Task t WHERE t.id = ?1 AND t.user.id = ?2")
+    Optional<Long> findVersionByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT " + TASK_DTO + " FROM Task t "
+            + "WHERE t.id = ?1 AND t.user.id = ?2")
+    Optional<TaskDTO> findDTOByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT " + TASK_DTO + " FROM Task t WHERE t.user.id = ?1 "
+            + "ORDER BY t.dueDate, t.id")
+    List<TaskDTO> findPageByUserId(Long userId, Pageable pageable);
+
+    @Query("SELECT " + TASK_DTO + " FROM Task t WHERE t.user.id = ?1 "
+            + "AND (t.dueDate > ?2 OR (t.dueDate = ?2 AND t.id > ?3)) "
+            + "ORDER BY t.dueDate, t.id")
+    List<TaskDTO> findPageByUserIdAfter(Long userId, LocalDate dueDate,
+            Long id, Pageable pageable);
+
+    // Read forward-only in fixed size chunks so the result set is never held
+    // in memory all at once (must be called inside a transaction)
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT " + TASK_DTO + " FROM Task t WHERE t.user.id = ?1 "
+            + "ORDER BY t.dueDate, t.id")
+    Stream<TaskDTO> streamAllByUserId(Long userId);
 }
@@ -0,0 +1,294 @@
+package com.example.todo.task;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory inverted index of the titles and descriptions of every user's
+ * tasks, so tasks can be searched without reading them from the database.
+ * <p>
+ * Each user has their own index of terms (lower case words) to the tasks that
+ * contain them, kept in a sorted map so a prefix is a range of terms. A search
+ * only looks at the terms matching the query, so it doesn't get slower as the
+ * user's other tasks grow. A user's index is built from their tasks the
+ * first time they search and kept up to date from the
+ * {@link TaskChangedEvent}s published after each change commits. The indexes
+ * are in a size bounded cache and are evicted once the user hasn't searched
+ * for a while.
+ */
+@Component
+public class TaskSearchIndex {
+    private static final long DEFAULT_MAX_USERS = 10_000;
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+    private static final String TERM_SEPARATOR = "[^\\p{L}\\p{N}]+";
+    private static final int MAX_QUERY_TERMS = 10;
+    // A term in the title counts more than the same term in the description,
+    // and a whole term counts more than a term that only starts with it
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_MATCH_BOOST = 2;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Long, UserIndex> indexes;
+    private final Timer searchTimer;
+
+    @Autowired
+    public TaskSearchIndex(TaskRepository taskRepository,
+            PlatformTransactionManager transactionManager,
+            Environment environment, MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty(
+                        "task.search.max-users",
+                        Long.class,
+                        DEFAULT_MAX_USERS
+                ))
+                .expireAfterAccess(Duration.ofMinutes(environment.getProperty(
+                        "task.search.idle-minutes",
+                        Long.class,
+                        DEFAULT_IDLE_MINUTES
+                )))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "taskSearch");
+        this.searchTimer = Timer.builder("task.search")
+                .description("Time taken to search a user's tasks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies a task change to the user's index, if it is loaded, after the
+     * change commits (or straight away if the change wasn't made in a
+     * transaction). Indexes that aren't loaded will include the change when
+     * they are.
+     * @param event The task change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskDTO task = event.current();
+        if (task == null && event.previous() == null) {
+            return;
+        }
+        // compute() (unlike computeIfPresent()) waits for an index that is
+        // being loaded, so the change isn't lost if the load read the tasks
+        // before it committed (putting or removing a task twice is harmless)
+        indexes.asMap().compute(event.userId(), (userId, index) -> {
+            if (index != null) {
+                if (task == null) {
+                    index.remove(event.previous().Id());
+                } else {
+                    index.put(task);
+                }
+            }
+            return index;
+        });
+    }
+
+    /**
+     * Builds the index of the user's tasks. The tasks are streamed so they
+     * are never all loaded at once.
+     * @param userId The ID of a user.
+     * @return The user's index.
+     */
+    private UserIndex load(Long userId) {
+        UserIndex index = new UserIndex();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<TaskDTO> tasks =
+                    taskRepository.streamAllByUserId(userId)) {
+                tasks.forEach(index::put);
+            }
+        });
+        return index;
+    }
+
+    /**
+     * Searches the titles and descriptions of the tasks that belong to the
+     * user with the given user ID. Every word in the query has to match a
+     * word in the task, or the start of one. Tasks are ranked by how well
+     * they match, then by due date. The first search for a user (or after
+     * their index was evicted) reads their tasks, every other search is
+     * served from memory.
+     * @param userId The ID of a user.
+     * @param query The search query.
+     * @param limit The maximum number of tasks to return.
+     * @return The best matching tasks, best first.
+     */
+    public List<TaskDTO> search(Long userId, String query, int limit) {
+        return searchTimer.record(() -> {
+            List<String> terms = new ArrayList<>(
+                    new LinkedHashSet<>(tokenize(query))
+            );
+            if (terms.isEmpty()) {
+                return List.of();
+            }
+            return indexes.get(userId, this::load).search(
+                    terms.subList(0, Math.min(terms.size(), MAX_QUERY_TERMS)),
+                    limit
+            );
+        });
+    }
+
+    /**
+     * Splits text into lower case terms on anything that isn't a letter or a
+     * digit.
+     * @param text The text to split.
+     * @return The terms in the text, in order (including duplicates).
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : text.toLowerCase(Locale.ROOT)
+                .split(TERM_SEPARATOR)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Gets the weight of each term in a task: how many times it appears,
+     * counting the title more than the description.
+     * @param task The task data.
+     * @return The weight of each term in the task.
+     */
+    private static Map<String, Integer> termWeights(TaskDTO task) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(task.title())) {
+            weights.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(task.description())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+
+    /**
+     * The index of one user's tasks. Changes and searches for the same user
+     * are serialised, different users don't block each other.
+     */
+    private static class UserIndex {
+        private final Map<Long, TaskDTO> tasks = new HashMap<>();
+        private final NavigableMap<String, Map<Long, Integer>> postings =
+                new TreeMap<>();
+
+        synchronized void put(TaskDTO task) {
+            remove(task.Id());
+            tasks.put(task.Id(), task);
+            termWeights(task).forEach((term, weight) -> postings
+                    .computeIfAbsent(term, key -> new HashMap<>())
+                    .put(task.Id(), weight));
+        }
+
+        synchronized void remove(Long taskId) {
+            TaskDTO task = tasks.remove(taskId);
+            if (task == null) {
+                return;
+            }
+            for (String term : termWeights(task).keySet()) {
+                Map<Long, Integer> taskWeights = postings.get(term);
+                taskWeights.remove(taskId);
+                if (taskWeights.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        synchronized List<TaskDTO> search(List<String> terms, int limit) {
+            // The rarest term is scored first, the candidates it leaves are
+            // then looked up in the postings of the other terms, so a common
+            // term doesn't make the search scan most of the tasks
+            List<SortedMap<String, Map<Long, Integer>>> matches = terms.stream()
+                    .map(this::matchingPostings)
+                    .sorted(Comparator.comparingLong(UserIndex::postingCount))
+                    .toList();
+            Map<Long, Integer> scores = new HashMap<>();
+            matches.get(0).forEach((term, taskWeights) ->
+                    taskWeights.forEach((taskId, weight) -> scores.merge(
+                            taskId, weight * boost(terms, term),
+                            Integer::sum)));
+            for (SortedMap<String, Map<Long, Integer>> match
+                    : matches.subList(1, matches.size())) {
+                // Only tasks matching every term are kept
+                scores.replaceAll((taskId, score) -> {
+                    int termScore = 0;
+                    for (Map.Entry<String, Map<Long, Integer>> entry
+                            : match.entrySet()) {
+                        Integer weight = entry.getValue().get(taskId);
+                        if (weight != null) {
+                            termScore += weight * boost(terms, entry.getKey());
+                        }
+                    }
+                    return termScore == 0 ? null : score + termScore;
+                });
+                scores.values().removeIf(Objects::isNull);
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return scores.keySet().stream()
+                    .map(tasks::get)
+                    .sorted(Comparator
+                            .comparing((TaskDTO task) -> scores.get(task.Id()))
+                            .reversed()
+                            .thenComparing(TaskDTO::dueDate,
+                                    Comparator.nullsLast(
+                                            Comparator.naturalOrder()))
+                            .thenComparing(TaskDTO::Id))
+                    .limit(limit)
+                    .toList();
+        }
+
+        /**
+         * Gets the postings of the terms starting with the given query term,
+         * which are the range of the sorted map from the query term up to
+         * the next possible prefix.
+         */
+        private SortedMap<String, Map<Long, Integer>> matchingPostings(
+                String queryTerm) {
+            return postings.subMap(queryTerm, true,
+                    queryTerm + Character.MAX_VALUE, false);
+        }
+
+        private static long postingCount(
+                SortedMap<String, Map<Long, Integer>> match) {
+            return match.values().stream().mapToLong(Map::size).sum();
+        }
+
+        /**
+         * Gets the boost for an indexed term, which is higher if it is one of
+         * the query terms rather than only starting with one.
+         */
+        private static int boost(List<String> queryTerms, String term) {
+            return queryTerms.contains(term) ? EXACT_MATCH_BOOST : 1;
+        }
+    }
+}
@@ -1,24 +1,50 @@
 package com.example.todo.task;
 
+import com.example.todo.config.CacheConfig;
 import com.example.todo.user.User;
 import com.example.todo.user.UserRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * A service class containing methods for all the business logic for tasks.
+ * A {@link TaskChangedEvent} is published for every task that is created,
+ * updated or deleted.
  */
 @Service
 public class TaskService {
     private final TaskRepository taskRepository;
+    private final TaskListVersionRepository taskListVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public TaskService(TaskRepository taskRepository) {
+    public TaskService(TaskRepository taskRepository,
+            TaskListVersionRepository taskListVersionRepository,
+            ApplicationEventPublisher eventPublisher,
+            CacheManager cacheManager) {
         this.taskRepository = taskRepository;
+        this.taskListVersionRepository = taskListVersionRepository;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -27,7 +53,24 @@ public class TaskService {
      * @param user The user creating the task.
      * @return A new Task object.
      */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_TASKS_CACHE, key = "#user.id")
     public Task createTask(NewTaskPayload payload, User user) {
+        Task task = taskRepository.save(buildTask(payload, user));
+        bumpTaskListVersion(user.getId());
+        eventPublisher.publishEvent(
+                new TaskChangedEvent(user.getId(), null, task)
+        );
+        return task;
+    }
+
+    /**
+     * Builds a new task for the given user from the given payload.
+     * @param payload The data for the new task.
+     * @param user The user creating the task.
+     * @return A new (unsaved) Task object.
+     */
+    private Task buildTask(NewTaskPayload payload, User user) {
         Task task = new Task();
         task.setTitle(payload.title().trim());
         if (payload.description() == null) {
@@ -38,39 +81,212 @@ public class TaskService {
         task.setDueDate(payload.dueDate());
         task.setComplete(false);
         task.setUser(user);
-        return taskRepository.save(task);
+        return task;
     }
 
     /**
-     * Gets a Task object for the task that has the given ID (if it exists).
+     * Gets a Task object for the task that has the given ID if it belongs to
+     * the user with the given user ID. The task is loaded by ID so it can come
+     * from the second-level cache, then its owner is checked.
      * @param taskId The ID of a task.
-     * @return A Task object (if a task with the ID is found).
+     * @param userId The ID of the user that should own the task.
+     * @return A Task object (if a task with the ID belongs to the user).
+     */
+    public Optional<Task> getUserTask(Long taskId, Long userId) {
+        return taskRepository.findById(taskId)
+                .filter(task -> task.getUser().getId().equals(userId));
+    }
+
+    /**
+     * Gets the data for the task that has the given ID if it belongs to the
+     * user with the given user ID, without loading the Task entity.
+     * @param taskId The ID of a task.
+     * @param userId The ID of the user that should own the task.
+     * @return The task data (if a task with the ID belongs to the user).
+     */
+    public Optional<TaskDTO> getUserTaskDTO(Long taskId, Long userId) {
+        return taskRepository.findDTOByIdAndUserId(taskId, userId);
+    }
+
+    /**
+     * Gets the version of the task that has the given ID if it belongs to the
+     * user with the given user ID, without reading the rest of the task.
+     * @param taskId The ID of a task.
+     * @param userId The ID of the user that should own the task.
+     * @return The version of the task (if a task with the ID belongs to the
+     * user).
+     */
+    public Optional<Long> getUserTaskVersion(Long taskId, Long userId) {
+        return taskRepository.findVersionByIdAndUserId(taskId, userId);
+    }
+
+    /**
+     * Checks if a task with the given ID exists. This is used to tell apart a
+     * task that doesn't exist from a task that belongs to another user after
+     * an owner-scoped query didn't find the task.
+     * @param taskId The ID of a task.
+     * @return `true` if the task exists, `false` if not.
+     */
+    public boolean taskExists(Long taskId) {
+        return taskRepository.existsById(taskId);
+    }
+
+    /**
+     * Gets the tasks that belong to the user with the given user ID with the
+     * version of the task list they were read at. The list is cached until
+     * one of the user's tasks changes, but a list read before a change can be
+     * cached after the change evicted it, so a cached list older than the
+     * given version is read again.
+     * @param userId The ID of a user.
+     * @param version The current version of the user's task list, read
+     * before the tasks.
+     * @return The task list, at the given version or a newer one.
+     */
+    public TaskList getUserTasks(Long userId, long version) {
+        Cache cache = cacheManager.getCache(CacheConfig.USER_TASKS_CACHE);
+        TaskList cached = cache.get(userId, TaskList.class);
+        if (cached != null && cached.version() >= version) {
+            return cached;
+        }
+        TaskList tasks = new TaskList(version,
+                taskRepository.findAllByUserId(userId));
+        cache.put(userId, tasks);
+        return tasks;
+    }
+
+    /**
+     * Gets the tasks that belong to the user with the given user ID and
+     * match the given filter, ordered by due date. Filtered lists aren't
+     * cached, the filter is run as indexed predicates in the query instead.
+     * @param userId The ID of a user.
+     * @param filter The filter and sort order.
+     * @return A list of task data.
+     */
+    public List<TaskDTO> getUserTasks(Long userId, TaskFilter filter) {
+        return taskRepository.findAllByUserId(userId, filter, null, 0);
+    }
+
+    /**
+     * Gets the version of the task list of the user with the given user ID.
+     * The version changes every time one of the user's tasks is created,
+     * updated or deleted.
+     * @param userId The ID of a user.
+     * @return The version of the user's task list (0 if the user has never
+     * changed a task).
+     */
+    public long getTaskListVersion(Long userId) {
+        return taskListVersionRepository.findVersionByUserId(userId)
+                .orElse(0L);
+    }
+
+    /**
+     * Gets a page of tasks that belong to the user with the given user ID,
+     * ordered by due date and ID, starting after the given cursor.
+     * @param userId The ID of a user.
+     * @param cursor The position of the last task in the previous page, or
+     * null for the first page.
+     * @param limit The maximum number of tasks in the page.
+     * @return A page of tasks with the cursor for the next page.
+     */
+    public TaskPage getUserTaskPage(Long userId, TaskCursor cursor, int limit) {
+        // One extra task is fetched to know if there is a next page
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        List<TaskDTO> tasks = cursor == null
+                ? taskRepository.findPageByUserId(userId, pageRequest)
+                : taskRepository.findPageByUserIdAfter(userId,
+                        cursor.dueDate(), cursor.id(), pageRequest);
+        return toPage(tasks, limit);
+    }
+
+    /**
+     * Gets a page of the tasks that belong to the user with the given user ID
+     * and match the given filter, ordered by due date and ID in the filter's
+     * direction, starting after the given cursor.
+     * @param userId The ID of a user.
+     * @param filter The filter and sort order.
+     * @param cursor The position of the last task in the previous page, or
+     * null for the first page.
+     * @param limit The maximum number of tasks in the page.
+     * @return A page of tasks with the cursor for the next page.
      */
-    public Optional<Task> getTaskById(Long taskId) {
-        return taskRepository.findById(taskId);
+    public TaskPage getUserTaskPage(Long userId, TaskFilter filter,
+            TaskCursor cursor, int limit) {
+        if (filter.equals(TaskFilter.NONE)) {
+            return getUserTaskPage(userId, cursor, limit);
+        }
+        return toPage(taskRepository.findAllByUserId(userId, filter, cursor,
+                limit + 1), limit);
     }
 
     /**
-     * Gets a list of tasks that belong to the user with the given user ID.
+     * Creates a page from the tasks read for it.
+     * @param tasks The tasks, with one more than the limit if there is a
+     * next page.
+     * @param limit The maximum number of tasks in the page.
+     * @return A page of tasks with the cursor for the next page.
+     */
+    private TaskPage toPage(List<TaskDTO> tasks, int limit) {
+        List<TaskDTO> page = tasks.stream()
+                .limit(limit)
+                .toList();
+        String nextCursor = tasks.size() > limit
+                ? TaskCursor.from(page.get(page.size() - 1)).encode()
+                : null;
+        return new TaskPage(page, nextCursor);
+    }
+
+    /**
+     * Streams all the tasks that belong to the user with the given user ID to
+     * the given consumer, ordered by due date. The tasks are read as
+     * TaskDTOs which aren't managed entities, so memory use doesn't grow with
+     * the number of tasks.
      * @param userId The ID of a user.
-     * @return A list of tasks.
+     * @param consumer The consumer for each task.
      */
-    public List<Task> getUserTasks(Long userId) {
-        return taskRepository.findAllByUserId(userId);
+    @Transactional
+    public void exportUserTasks(Long userId, Consumer<TaskDTO> consumer) {
+        try (Stream<TaskDTO> tasks = taskRepository.streamAllByUserId(userId)) {
+            tasks.forEach(consumer);
+        }
     }
 
     /**
-     * Updates the given task with the updated data from the payload.
+     * Updates the given task with the updated data from the payload. Only the
+     * changed columns are written, in an UPDATE that checks the version the
+     * task was read with.
      * @param task The task to be updated.
      * @param payload An object containing the new task data.
      * @return A Task object with the updated task data.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException
+     * If the task was changed by another transaction after it was read.
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_TASKS_CACHE,
+            key = "#task.user.id")
     public Task updateTask(Task task, UpdateTaskPayload payload) {
+        TaskDTO previous = task.toDTO();
+        if (applyUpdate(task, payload)) {
+            bumpTaskListVersion(task.getUser().getId());
+            eventPublisher.publishEvent(new TaskChangedEvent(
+                    task.getUser().getId(), previous, task
+            ));
+        }
+        return task;
+    }
+
+    /**
+     * Copies the updated data from the payload onto the given task.
+     * @param task The task to be updated.
+     * @param payload An object containing the new task data.
+     * @return `true` if any of the task data changed, `false` if not.
+     */
+    private boolean applyUpdate(Task task, UpdateTaskPayload payload) {
+        boolean changed = false;
         if(payload.title() != null
                 && !payload.title().trim().isEmpty()
                 && !payload.title().trim().equals(task.getTitle())) {
             task.setTitle(payload.title().trim());
+            changed = true;
         }
 
         if (payload.description() != null
@@ -78,25 +294,182 @@ public class TaskService {
                 && !payload.description().trim()
                         .equals(task.getDescription())) {
             task.setDescription(payload.description().trim());
+            changed = true;
         }
 
         if (payload.dueDate() != null
                 && !payload.dueDate().equals(task.getDueDate())) {
             task.setDueDate(payload.dueDate());
+            changed = true;
         }
 
-        if (payload.isComplete() != task.isComplete()) {
+        if (payload.isComplete() != null
+                && payload.isComplete() != task.isComplete()) {
             task.setComplete(payload.isComplete());
+            changed = true;
         }
 
-        return task;
+        return changed;
+    }
+
+    /**
+     * Creates, updates and deletes the tasks in the given batch in a single
+     * transaction. The tasks to update and delete are loaded with one query
+     * to check they exist and belong to the user, and the changes are
+     * written with JDBC batching. A change to a task that doesn't exist or
+     * doesn't belong to the user fails without affecting the other changes.
+     * @param payload The batch of changes.
+     * @param user The user making the changes.
+     * @return The result of each change.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_TASKS_CACHE, key = "#user.id")
+    public BatchTaskResponse applyBatch(BatchTaskPayload payload, User user) {
+        Set<Long> taskIds = new HashSet<>(payload.delete());
+        payload.update().forEach(item -> taskIds.add(item.id()));
+        Map<Long, Task> tasks = new HashMap<>();
+        taskRepository.findAllById(taskIds)
+                .forEach(task -> tasks.put(task.getId(), task));
+
+        List<Task> newTasks = payload.create().stream()
+                .map(item -> buildTask(item, user))
+                .toList();
+        List<TaskChangedEvent> events = new ArrayList<>();
+        List<BatchItemResult> created = taskRepository.saveAll(newTasks)
+                .stream()
+                .map(task -> {
+                    events.add(new TaskChangedEvent(user.getId(), null, task));
+                    return BatchItemResult.success(
+                            HttpStatus.CREATED.value(),
+                            task.toDTO()
+                    );
+                })
+                .toList();
+
+        boolean changed = !newTasks.isEmpty();
+
+        List<BatchItemResult> updated = new ArrayList<>();
+        Map<Integer, Task> updatedTasks = new HashMap<>();
+        for (BatchUpdatePayload item : payload.update()) {
+            Task task = tasks.get(item.id());
+            BatchItemResult error = checkBatchTask(item.id(), task, user);
+            if (error != null) {
+                updated.add(error);
+                continue;
+            }
+            TaskDTO previous = task.toDTO();
+            if (applyUpdate(task, item.toUpdatePayload())) {
+                events.add(new TaskChangedEvent(user.getId(), previous, task));
+                changed = true;
+            }
+            updatedTasks.put(updated.size(), task);
+            updated.add(null);
+        }
+        if (!updatedTasks.isEmpty()) {
+            // Flushing increments the versions of the updated tasks
+            taskRepository.flush();
+            updatedTasks.forEach((index, task) -> updated.set(index,
+                    BatchItemResult.success(HttpStatus.OK.value(),
+                            task.toDTO())));
+        }
+
+        List<BatchItemResult> deleted = new ArrayList<>();
+        Map<Long, Task> tasksToDelete = new LinkedHashMap<>();
+        for (Long taskId : payload.delete()) {
+            Task task = tasks.get(taskId);
+            BatchItemResult error = checkBatchTask(taskId, task, user);
+            if (error != null) {
+                deleted.add(error);
+                continue;
+            }
+            if (tasksToDelete.put(taskId, task) == null) {
+                events.add(new TaskChangedEvent(user.getId(), task.toDTO(),
+                        null));
+            }
+            deleted.add(new BatchItemResult(taskId, HttpStatus.OK.value(),
+                    "Task was successfully deleted", null));
+        }
+        if (!tasksToDelete.isEmpty()) {
+            // Deleted one by one (in a JDBC batch) so only these tasks are
+            // evicted from the second-level cache, a bulk delete clears it
+            taskRepository.deleteAll(tasksToDelete.values());
+            changed = true;
+        }
+
+        if (changed) {
+            bumpTaskListVersion(user.getId());
+        }
+        events.forEach(eventPublisher::publishEvent);
+        return new BatchTaskResponse(created, updated, deleted);
     }
 
     /**
-     * Deletes the task that has the given task ID.
+     * Checks that a task in a batch exists and belongs to the given user.
+     * @param taskId The ID of the task from the batch.
+     * @param task The task with that ID (null if it doesn't exist).
+     * @param user The user making the changes.
+     * @return A failed result if the task can't be changed, otherwise null.
+     */
+    private BatchItemResult checkBatchTask(Long taskId, Task task, User user) {
+        if (task == null) {
+            return BatchItemResult.failure(taskId, HttpStatus.NOT_FOUND.value(),
+                    "Cannot find task with ID " + taskId);
+        }
+        if (!task.getUser().getId().equals(user.getId())) {
+            return BatchItemResult.failure(taskId, HttpStatus.FORBIDDEN.value(),
+                    "Unauthorised - not your task");
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the task that has the given task ID if it belongs to the user
+     * with the given user ID. The task is deleted as an entity instead of
+     * with a bulk DELETE, which would clear every task from the second-level
+     * cache.
      * @param taskId The ID of a task.
+     * @param userId The ID of the user that should own the task.
+     * @return `true` if the task was deleted, `false` if no task with the ID
+     * belongs to the user.
      */
-    public void deleteTask(Long taskId) {
-        taskRepository.deleteById(taskId);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USER_TASKS_CACHE, key = "#userId")
+    public boolean deleteUserTask(Long taskId, Long userId) {
+        Optional<Task> task = getUserTask(taskId, userId);
+        if (task.isEmpty()) {
+            return false;
+        }
+        taskRepository.delete(task.get());
+        bumpTaskListVersion(userId);
+        eventPublisher.publishEvent(
+                new TaskChangedEvent(userId, task.get().toDTO(), null)
+        );
+        return true;
+    }
+
+    /**
+     * Creates the task list version of a new user, so that changes to their
+     * tasks only ever update it (two first changes at once could otherwise
+     * both try to insert it). This must be called in the same transaction
+     * that saves the user.
+     * @param userId The ID of the new user.
+     */
+    @Transactional
+    public void createTaskListVersion(Long userId) {
+        taskListVersionRepository.createVersion(userId);
+    }
+
+    /**
+     * Increments the version of the task list of the user with the given user
+     * ID. This must be called in the same transaction as the change.
+     * @param userId The ID of a user.
+     * @throws IllegalStateException If the user has no task list version.
+     */
+    private void bumpTaskListVersion(Long userId) {
+        if (taskListVersionRepository.incrementVersion(userId) == 0) {
+            throw new IllegalStateException(
+                    "No task list version for user " + userId
+            );
+        }
     }
 }
@@ -0,0 +1,13 @@
+package com.example.todo.task;
+
+/**
+ * Counts of a user's tasks for the dashboard.
+ * @param total The number of tasks.
+ * @param completed The number of complete tasks.
+ * @param open The number of incomplete tasks.
+ * @param overdue The number of incomplete tasks due before today.
+ * @param dueToday The number of incomplete tasks due today.
+ */
+public record TaskStats(long total, long completed, long open, long overdue,
+        long dueToday) {
+}
@@ -0,0 +1,155 @@
+package com.example.todo.task;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Serves the {@link TaskStats} of each user from {@link TaskCounters} kept in
+ * memory, so the dashboard doesn't need to read all of a user's tasks.
+ * <p>
+ * A user's counters are loaded with one grouped count query the first time
+ * their stats are asked for, and kept up to date from the
+ * {@link TaskChangedEvent}s published after each change commits. The counters
+ * are in a size bounded cache and are evicted once the user hasn't asked for
+ * their stats for a while. A change that commits while a user's counters are
+ * being loaded may be counted twice, so the cached counters are periodically
+ * reconciled with the database.
+ */
+@Component
+public class TaskStatsCache {
+    private static final Logger logger = LoggerFactory.getLogger(
+            TaskStatsCache.class
+    );
+    private static final long DEFAULT_MAX_USERS = 10_000;
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+
+    private final TaskRepository taskRepository;
+    private final Cache<Long, TaskCounters> counters;
+    private final Counter driftCounter;
+
+    @Autowired
+    public TaskStatsCache(TaskRepository taskRepository,
+            Environment environment, MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty(
+                        "task.stats.max-users",
+                        Long.class,
+                        DEFAULT_MAX_USERS
+                ))
+                .expireAfterAccess(Duration.ofMinutes(environment.getProperty(
+                        "task.stats.idle-minutes",
+                        Long.class,
+                        DEFAULT_IDLE_MINUTES
+                )))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, counters, "taskStats");
+        this.driftCounter = Counter.builder("task.stats.drift")
+                .description("Cached task stats that didn't match the "
+                        + "database when reconciled")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the stats of a user's tasks. The first call for a user (or after
+     * their counters were evicted) counts their tasks in the database, every
+     * other call is served from memory.
+     * @param userId The ID of a user.
+     * @return The user's task stats as of today.
+     */
+    public TaskStats getStats(Long userId) {
+        return counters.get(userId, this::load).stats(LocalDate.now());
+    }
+
+    /**
+     * Applies a task change to the user's counters, if they are loaded,
+     * after the change commits. Counters that aren't loaded will include the
+     * change when they are.
+     * @param event The task change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskDTO previous = event.previous();
+        TaskDTO current = event.current();
+        // compute() waits for counters that are being loaded, so the change
+        // isn't lost if the load counted the tasks before it committed
+        counters.asMap().compute(event.userId(), (userId, userCounters) -> {
+            if (userCounters != null) {
+                userCounters.apply(previous, current, LocalDate.now());
+            }
+            return userCounters;
+        });
+    }
+
+    /**
+     * Recounts the tasks of every user whose counters are cached and replaces
+     * the counters that have drifted from the database. Counters that change
+     * while their tasks are recounted are left as they are until the next
+     * run, as the recount may or may not include the change.
+     */
+    @Scheduled(
+            initialDelayString = "${task.stats.reconcile-interval:PT15M}",
+            fixedDelayString = "${task.stats.reconcile-interval:PT15M}"
+    )
+    public void reconcile() {
+        int drifted = 0;
+        for (Long userId : List.copyOf(counters.asMap().keySet())) {
+            // Read without counting as an access, so reconciling doesn't
+            // keep idle users cached
+            TaskCounters cached = counters.policy().getIfPresentQuietly(userId);
+            if (cached == null) {
+                continue;
+            }
+            long changes = cached.changes();
+            TaskCounters recounted = load(userId);
+            LocalDate today = LocalDate.now();
+            if (recounted.stats(today).equals(cached.stats(today))) {
+                continue;
+            }
+            boolean[] replaced = {false};
+            counters.asMap().computeIfPresent(userId, (id, current) -> {
+                if (current != cached || current.changes() != changes) {
+                    return current;
+                }
+                replaced[0] = true;
+                return recounted;
+            });
+            if (replaced[0]) {
+                drifted++;
+                driftCounter.increment();
+            }
+        }
+        if (drifted > 0) {
+            logger.warn("Reconciled the task stats of {} users", drifted);
+        }
+    }
+
+    /**
+     * Counts the user's tasks by status and due date.
+     * @param userId The ID of a user.
+     * @return The user's counters.
+     */
+    private TaskCounters load(Long userId) {
+        TaskCounters userCounters = new TaskCounters(LocalDate.now());
+        for (TaskCount count : taskRepository.countByUserId(userId)) {
+            userCounters.add(count.isComplete(), count.dueDate(),
+                    count.count());
+        }
+        return userCounters;
+    }
+}
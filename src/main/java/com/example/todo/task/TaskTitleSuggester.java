@@ -0,0 +1,112 @@
+package com.example.todo.task;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Suggests task titles as a user types, from the titles of the tasks they
+ * have created, ranked by how often and how recently each title was used.
+ * <p>
+ * Each user's titles are kept in a {@link TitleTrie} which is loaded from
+ * their tasks the first time they ask for suggestions and updated from the
+ * {@link TaskChangedEvent}s for created and renamed tasks. Titles of deleted
+ * tasks are still suggested until the trie is loaded again. The tries are in
+ * a size bounded cache and are evicted once the user hasn't created, renamed
+ * or typed anything for a while.
+ */
+@Component
+public class TaskTitleSuggester {
+    private static final long DEFAULT_MAX_USERS = 10_000;
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+    private static final long DEFAULT_HALF_LIFE_HOURS = 168;
+
+    private final TaskRepository taskRepository;
+    private final long halfLifeMillis;
+    private final Cache<Long, TitleTrie> tries;
+
+    @Autowired
+    public TaskTitleSuggester(TaskRepository taskRepository,
+            Environment environment, MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.halfLifeMillis = Duration.ofHours(environment.getProperty(
+                "task.suggest.half-life-hours",
+                Long.class,
+                DEFAULT_HALF_LIFE_HOURS
+        )).toMillis();
+        this.tries = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty(
+                        "task.suggest.max-users",
+                        Long.class,
+                        DEFAULT_MAX_USERS
+                ))
+                .expireAfterAccess(Duration.ofMinutes(environment.getProperty(
+                        "task.suggest.idle-minutes",
+                        Long.class,
+                        DEFAULT_IDLE_MINUTES
+                )))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tries, "taskSuggestions");
+    }
+
+    /**
+     * Gets the titles of the user's tasks that start with the given prefix.
+     * The first call for a user (or after their titles were evicted) reads
+     * the titles of their tasks, every other call is served from memory.
+     * @param userId The ID of a user.
+     * @param prefix What the user has typed so far.
+     * @param limit The maximum number of titles to return.
+     * @return The best matching titles, best first.
+     */
+    public List<String> suggest(Long userId, String prefix, int limit) {
+        return tries.get(userId, this::load).suggest(prefix, limit);
+    }
+
+    /**
+     * Adds the title of a created or renamed task to the user's titles, if
+     * they are loaded, after the change commits. Titles that aren't loaded
+     * will include the change when they are.
+     * @param event The task change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        TaskDTO task = event.current();
+        if (task == null || (event.previous() != null
+                && event.previous().title().equals(task.title()))) {
+            return;
+        }
+        // compute() (unlike computeIfPresent()) waits for titles that are
+        // being loaded, so the change isn't lost if the load read the tasks
+        // before it committed (it may be counted twice if it read them after)
+        tries.asMap().compute(event.userId(), (userId, trie) -> {
+            if (trie != null) {
+                trie.add(task.title(), System.currentTimeMillis());
+            }
+            return trie;
+        });
+    }
+
+    /**
+     * Builds a trie of the titles of the user's tasks, each used once, in
+     * the order the tasks were created.
+     * @param userId The ID of a user.
+     * @return The user's titles.
+     */
+    private TitleTrie load(Long userId) {
+        TitleTrie trie = new TitleTrie(halfLifeMillis);
+        long now = System.currentTimeMillis();
+        for (String title : taskRepository.findTitlesByUserId(userId)) {
+            trie.add(title, now);
+        }
+        return trie;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.todo.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * A radix trie of one user's task titles for autocomplete. Titles are keyed
+ * in lower case with whitespace collapsed, so titles that only differ in case
+ * or spacing are suggested once (as they were last written). Each edge holds
+ * a run of characters rather than one, and the children of a node are a
+ * sorted array, so a trie of long titles with shared beginnings stays small.
+ * <p>
+ * Every title has a score which goes up by one each time it is used and
+ * halves every half-life, so suggestions are ranked by how often and how
+ * recently the title was used. As every score decays at the same rate, the
+ * order of two titles only changes when one of them is used. The order is
+ * kept as a rank (the log of the score plus the number of half-lives up to
+ * when it was last used) so titles are compared without decaying scores.
+ */
+class TitleTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingDouble((Suggestion suggestion) -> suggestion.rank)
+            .thenComparingLong(suggestion -> suggestion.lastUse);
+
+    private final double halfLifeMillis;
+    private final Node root = new Node("");
+    private long uses;
+    private int size;
+
+    /**
+     * Creates an empty trie.
+     * @param halfLifeMillis How long it takes for the score of a title to
+     * halve.
+     */
+    TitleTrie(long halfLifeMillis) {
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    /**
+     * Records a use of a title.
+     * @param title The title.
+     * @param now The current time in milliseconds.
+     */
+    synchronized void add(String title, long now) {
+        String displayTitle = title.trim().replaceAll("\\s+", " ");
+        String key = normalise(displayTitle);
+        if (key.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.childIndex(key.charAt(position));
+            if (index < 0) {
+                node = node.insertChild(-index - 1,
+                        new Node(key.substring(position)));
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefixLength(child.label, key, position);
+            if (common < child.label.length()) {
+                // Split the edge where the title leaves it
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[] { child };
+                node.children[index] = split;
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        if (node.suggestion == null) {
+            node.suggestion = new Suggestion();
+            size++;
+        }
+        node.suggestion.use(displayTitle, now, ++uses, halfLifeMillis);
+    }
+
+    /**
+     * Gets the best titles that start with the given prefix.
+     * @param prefix The prefix (case and repeated whitespace are ignored).
+     * @param limit The maximum number of titles to return.
+     * @return The titles with the highest scores, best first (the most
+     * recently used first if they have the same score).
+     */
+    synchronized List<String> suggest(String prefix, int limit) {
+        Node node = find(normalise(prefix.stripLeading()
+                .replaceAll("\\s+", " ")));
+        if (node == null) {
+            return List.of();
+        }
+        // The worst of the best titles so far is at the head
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(RANKING);
+        collect(node, best, limit);
+        List<String> titles = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            titles.add(best.poll().title);
+        }
+        Collections.reverse(titles);
+        return titles;
+    }
+
+    /**
+     * Gets the number of different titles in the trie.
+     * @return The number of titles.
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the node under which all the keys start with the given prefix.
+     * The prefix can end part way along an edge.
+     * @param prefix The normalised prefix.
+     * @return The node, or null if no key starts with the prefix.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = node.childIndex(prefix.charAt(position));
+            if (index < 0) {
+                return null;
+            }
+            node = node.children[index];
+            int common = commonPrefixLength(node.label, prefix, position);
+            if (position + common == prefix.length()) {
+                return node;
+            }
+            if (common < node.label.length()) {
+                return null;
+            }
+            position += common;
+        }
+        return node;
+    }
+
+    private static void collect(Node node, PriorityQueue<Suggestion> best,
+            int limit) {
+        if (node.suggestion != null) {
+            if (best.size() < limit) {
+                best.add(node.suggestion);
+            } else if (RANKING.compare(node.suggestion, best.peek()) > 0) {
+                best.poll();
+                best.add(node.suggestion);
+            }
+        }
+        for (Node child : node.children) {
+            collect(child, best, limit);
+        }
+    }
+
+    private static String normalise(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static int commonPrefixLength(String label, String key,
+            int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int length = 0;
+        while (length < max
+                && label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private Suggestion suggestion;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Finds the child whose edge starts with the given character.
+         * @return The index of the child, or (-(insertion point) - 1) if
+         * there isn't one (as in {@link java.util.Arrays#binarySearch}).
+         */
+        private int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char label = children[middle].label.charAt(0);
+                if (label < first) {
+                    low = middle + 1;
+                } else if (label > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private Node insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1,
+                    children.length - index);
+            children = grown;
+            return child;
+        }
+    }
+
+    private static class Suggestion {
+        private String title;
+        private double score;
+        private long scoredAt;
+        private double rank;
+        private long lastUse;
+
+        private void use(String title, long now, long use,
+                double halfLifeMillis) {
+            double halfLives = (now - scoredAt) / halfLifeMillis;
+            score = score * Math.pow(0.5, halfLives) + 1;
+            scoredAt = now;
+            rank = Math.log(score) / Math.log(2) + now / halfLifeMillis;
+            this.title = title;
+            this.lastUse = use;
+        }
+    }
+}
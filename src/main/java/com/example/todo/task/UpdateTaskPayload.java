@@ -2,7 +2,10 @@ package com.example.todo.task;
 
 import java.time.LocalDate;
 
+/**
+ * The data for updating a task. Fields that are null are left unchanged.
+ */
 public record UpdateTaskPayload(String title, String description,
-                LocalDate dueDate, boolean isComplete) {
+                LocalDate dueDate, Boolean isComplete) {
 
 }
@@ -0,0 +1,122 @@
+package com.example.todo.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory, size bounded cache of users keyed by email so that the user
+ * making a request doesn't have to be loaded from the database on every
+ * request. Entries expire after a fixed time and are evicted whenever the
+ * user is saved, updated or deleted (see {@link UserCacheInvalidator}).
+ * The email each cached user was loaded with is also kept by ID, so a user
+ * that changed their email can be evicted without scanning the cache.
+ */
+@Component
+public class UserCache {
+    private static final long DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_SECONDS = 300;
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> users;
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UserCache(UserRepository userRepository, Environment environment,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty(
+                        "user.cache.max-size",
+                        Long.class,
+                        DEFAULT_MAX_SIZE
+                ))
+                .expireAfterWrite(Duration.ofSeconds(environment.getProperty(
+                        "user.cache.ttl-seconds",
+                        Long.class,
+                        DEFAULT_TTL_SECONDS
+                )))
+                .evictionListener((String email, User user,
+                        RemovalCause cause) -> forgetEmail(user, email))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /**
+     * Gets the user with the given email from the cache, loading it from the
+     * database if it isn't cached. Emails without a user are not cached. The
+     * load is atomic with respect to {@link #evict(User)}, so an eviction
+     * that happens while the user is being read can't leave a stale copy in
+     * the cache.
+     * @param email The email of the user.
+     * @return The User with the given email (if one exists).
+     */
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(users.get(email, this::load));
+    }
+
+    private User load(String email) {
+        User user = userRepository.findByEmail(email).orElse(null);
+        if (user != null && user.getId() != null) {
+            emailsById.put(user.getId(), email);
+        }
+        return user;
+    }
+
+    private void forgetEmail(User user, String email) {
+        if (user != null && user.getId() != null) {
+            emailsById.remove(user.getId(), email);
+        }
+    }
+
+    /**
+     * Removes the given user from the cache. The entry for the email the user
+     * was cached with is removed as well, so a user that changed their email
+     * is also evicted.
+     * @param user The user that was saved, updated or deleted.
+     */
+    public void evict(User user) {
+        if (user.getEmail() != null) {
+            users.invalidate(user.getEmail());
+        }
+        if (user.getId() != null) {
+            String cachedEmail = emailsById.remove(user.getId());
+            if (cachedEmail != null) {
+                users.invalidate(cachedEmail);
+            }
+        }
+    }
+
+    /**
+     * Removes every user from the cache.
+     */
+    public void evictAll() {
+        users.invalidateAll();
+        emailsById.clear();
+    }
+
+    /**
+     * @return The number of lookups that were served from the cache.
+     */
+    public long getHitCount() {
+        return users.stats().hitCount();
+    }
+
+    /**
+     * @return The number of lookups that had to go to the database.
+     */
+    public long getMissCount() {
+        return users.stats().missCount();
+    }
+}
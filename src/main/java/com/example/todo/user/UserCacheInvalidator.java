@@ -0,0 +1,29 @@
+package com.example.todo.user;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * A JPA entity listener that evicts a user from the {@link UserCache} whenever
+ * the user is saved, updated or deleted. The listener is created by Hibernate
+ * through Spring, so the cache is looked up lazily as it may not exist in
+ * slices of the application context (e.g. repository tests).
+ */
+public class UserCacheInvalidator {
+    private final ObjectProvider<UserCache> userCache;
+
+    @Autowired
+    public UserCacheInvalidator(ObjectProvider<UserCache> userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onUserChange(User user) {
+        userCache.ifAvailable(cache -> cache.evict(user));
+    }
+}
@@ -0,0 +1,33 @@
+-- The schema Hibernate creates for the servlet application, for the
+-- reactive variant (R2DBC doesn't create tables)
+CREATE SEQUENCE IF NOT EXISTS task_sequence START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS user_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS task (
+    id BIGINT NOT NULL PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    description VARCHAR(255),
+    due_date DATE NOT NULL,
+    is_complete BOOLEAN NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    version BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_task_user_id_due_date_id
+    ON task (user_id, due_date, id);
+
+CREATE INDEX IF NOT EXISTS idx_task_user_id_is_complete_due_date_id
+    ON task (user_id, is_complete, due_date, id);
+
+CREATE TABLE IF NOT EXISTS task_list_version (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL
+);
@@ -1,6 +1,7 @@
 package com.example.todo.auth;
 
 import com.example.todo.config.JwtUtils;
+import com.example.todo.task.TaskService;
 import com.example.todo.user.User;
 import com.example.todo.user.UserRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -10,13 +11,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 
@@ -25,21 +27,25 @@ class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHasher passwordHasher;
     @Mock
     private JwtUtils jwtUtils;
+    @Mock
+    private TaskService taskService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
     private AuthService authService;
 
     @BeforeEach
     void setUp() {
-        authService = new AuthService(userRepository, passwordEncoder,
-                jwtUtils);
+        authService = new AuthService(userRepository, passwordHasher,
+                jwtUtils, taskService, transactionManager);
     }
 
     @AfterEach
     void tearDown() {
         reset(userRepository);
-        reset(passwordEncoder);
+        reset(passwordHasher);
         reset(jwtUtils);
     }
 
@@ -94,6 +100,25 @@ class AuthServiceTest {
         verify(userRepository).save(any(User.class));
     }
 
+    @Test
+    void createUser_itShouldCreateTheTaskListVersionOfTheUser() {
+        // Given a payload of a name, email and password
+        RegistrationPayload payload = new RegistrationPayload(
+                "test",
+                "test@gmail.com",
+                "password"
+        );
+        given(userRepository.save(any(User.class))).willAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(1L);
+            return user;
+        });
+        // When createUser() is called with the payload
+        authService.createUser(payload);
+        // Then the new user's task list version is created
+        verify(taskService).createTaskListVersion(1L);
+    }
+
     @Test
     void createUser_itShouldCreateAUserObjectWithTheSameNameFromThePayload() {
         // Given a payload of a name, email and password
@@ -148,7 +173,7 @@ class AuthServiceTest {
         User capturedUser = argumentCaptor.getValue();
         assertThat(capturedUser.getPassword()).isNotEqualTo(password);
         assertThat(capturedUser.getPassword())
-                .isEqualTo(passwordEncoder.encode(password));
+                .isEqualTo(passwordHasher.encode(password));
     }
 
     @Test
@@ -179,7 +204,7 @@ class AuthServiceTest {
         String encryptedPassword = "encryptedPassword";
         authService.isPasswordValid(rawPassword, encryptedPassword);
         // Then PasswordEncoder's matches method is called
-        verify(passwordEncoder).matches(rawPassword, encryptedPassword);
+        verify(passwordHasher).matches(rawPassword, encryptedPassword);
     }
 
     @Test
@@ -187,7 +212,7 @@ class AuthServiceTest {
         // Given PasswordEncoder's matches() method returns true
         String rawPassword = "password";
         String encryptedPassword = "encryptedPassword";
-        given(passwordEncoder.matches(rawPassword, encryptedPassword))
+        given(passwordHasher.matches(rawPassword, encryptedPassword))
                 .willReturn(true);
         // When isPasswordValid() is called
         boolean result = authService.isPasswordValid(
@@ -197,4 +222,29 @@ class AuthServiceTest {
         // Then PasswordEncoder's matches method is called
         assertThat(result).isEqualTo(true);
     }
-}
\ No newline at end of file
+
+    @Test
+    void rehashPasswordIfNeeded_itShouldSaveANewHashIfTheStoredHashIsOutdated() {
+        // Given a user whose stored hash needs rehashing
+        User user = new User("test", "test@gmail.com", "oldHash");
+        given(passwordHasher.needsRehash("oldHash")).willReturn(true);
+        given(passwordHasher.encode("password")).willReturn("newHash");
+        // When rehashPasswordIfNeeded() is called with their password
+        authService.rehashPasswordIfNeeded(user, "password");
+        // Then the user is saved with the new hash
+        verify(userRepository).save(user);
+        assertThat(user.getPassword()).isEqualTo("newHash");
+    }
+
+    @Test
+    void rehashPasswordIfNeeded_itShouldNotSaveTheUserIfTheStoredHashIsCurrent() {
+        // Given a user whose stored hash doesn't need rehashing
+        User user = new User("test", "test@gmail.com", "hash");
+        given(passwordHasher.needsRehash("hash")).willReturn(false);
+        // When rehashPasswordIfNeeded() is called with their password
+        authService.rehashPasswordIfNeeded(user, "password");
+        // Then the user isn't saved
+        verify(userRepository, never()).save(any());
+        assertThat(user.getPassword()).isEqualTo("hash");
+    }
+}
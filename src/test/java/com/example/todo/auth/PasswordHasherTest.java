@@ -0,0 +1,106 @@
+package com.example.todo.auth;
+
+import com.example.todo.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MeterRegistry meterRegistry;
+    private PasswordHasher passwordHasher;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("auth.hashing.threads", "1")
+                .withProperty("auth.hashing.queue-capacity", "1")
+                .withProperty("auth.hashing.retry-after-seconds", "2");
+        passwordHasher = new PasswordHasher(new BlockingPasswordEncoder(),
+                meterRegistry, environment);
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        passwordHasher.shutdown();
+    }
+
+    @Test
+    void encode_itShouldReturnTheHashFromThePasswordEncoderAndRecordItsLatency() {
+        // Given the password encoder isn't blocked
+        release.countDown();
+        // When encode() is called
+        String hash = passwordHasher.encode("password");
+        // Then the hash from the encoder is returned and the hash is timed
+        assertThat(hash).isEqualTo("hash:password");
+        assertThat(meterRegistry.get("auth.hashing.duration")
+                .tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void encode_itShouldFailFastWithARetryAfterWhenTheQueueIsFull()
+            throws InterruptedException {
+        // Given one hash is running and one is waiting in the queue
+        callers.submit(() -> passwordHasher.encode("first"));
+        callers.submit(() -> passwordHasher.encode("second"));
+        waitForGauge("auth.hashing.active", 1);
+        waitForGauge("auth.hashing.queue.size", 1);
+        // When encode() is called again
+        // Then it is rejected straight away with the Retry-After delay
+        assertThatThrownBy(() -> passwordHasher.encode("third"))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting("retryAfterSeconds")
+                .isEqualTo(2L);
+        assertThat(meterRegistry.get("auth.hashing.rejected").counter()
+                .count()).isEqualTo(1);
+    }
+
+    private void waitForGauge(String name, double value)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get(name).gauge().value() != value) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError(name + " never reached " + value);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A password encoder which blocks until the test releases it.
+     */
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword,
+                String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
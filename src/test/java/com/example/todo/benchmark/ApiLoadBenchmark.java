@@ -0,0 +1,215 @@
+package com.example.todo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application on a random port against the in-memory H2 database,
+ * seeds users and tasks through the API and runs a mixed read and write
+ * workload at a fixed rate from many concurrent clients. Prints the
+ * throughput and p50, p99
+ * and p99.9 latency of each endpoint and writes them to
+ * target/api-load-benchmark.json so runs can be compared across releases.
+ * <p>
+ * Run with `./mvnw test -Pbenchmark -Dtest=ApiLoadBenchmark`. The size of the
+ * run can be changed with the system properties benchmark.users,
+ * benchmark.tasks-per-user, benchmark.clients, benchmark.rate (requests per
+ * second) and benchmark.duration-seconds.
+ */
+@Tag("benchmark")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.jpa.show-sql=false",
+                // Every client logs in from the same address
+                "auth.rate-limit.enabled=false"
+        }
+)
+class ApiLoadBenchmark {
+    private static final int USERS = Integer.getInteger("benchmark.users", 50);
+    private static final int TASKS_PER_USER = Integer.getInteger(
+            "benchmark.tasks-per-user", 20);
+    private static final int CLIENTS = Integer.getInteger(
+            "benchmark.clients", 100);
+    private static final int RATE = Integer.getInteger(
+            "benchmark.rate", 1_000);
+    private static final Duration WARMUP = Duration.ofSeconds(10);
+    private static final Duration MEASURED = Duration.ofSeconds(
+            Integer.getInteger("benchmark.duration-seconds", 30));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    /**
+     * A seeded user with their token and the IDs of their tasks.
+     */
+    private record SeededUser(long id, String email, String token,
+            List<Long> taskIds) {}
+
+    @Test
+    void mixedWorkload() throws Exception {
+        URI baseUri = URI.create("http://localhost:" + port);
+        List<SeededUser> users = seed(baseUri);
+
+        LoadGenerator load = new LoadGenerator(CLIENTS, RATE);
+        Map<String, LoadGenerator.LoadResult> results = null;
+        for (Duration duration : List.of(WARMUP, MEASURED)) {
+            results = load.runMixed(duration, n -> nextRequest(baseUri,
+                    users.get(ThreadLocalRandom.current().nextInt(USERS))));
+        }
+
+        List<Map<String, Object>> report = new ArrayList<>();
+        System.out.printf("[benchmark] api load (%d users, %d tasks each,"
+                + " %d clients, %d req/s, %ds)%n", USERS, TASKS_PER_USER,
+                CLIENTS, RATE, MEASURED.toSeconds());
+        results.forEach((endpoint, result) -> {
+            System.out.printf(
+                    "[benchmark] %-36s %8.1f req/s  p50 %7.2f ms"
+                            + "  p99 %7.2f ms  p99.9 %7.2f ms  %d errors%n",
+                    endpoint,
+                    result.throughput(),
+                    result.percentileMillis(50),
+                    result.percentileMillis(99),
+                    result.percentileMillis(99.9),
+                    result.errors()
+            );
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint);
+            row.put("requests", result.requests());
+            row.put("errors", result.errors());
+            row.put("throughput", result.throughput());
+            row.put("p50Millis", result.percentileMillis(50));
+            row.put("p99Millis", result.percentileMillis(99));
+            row.put("p999Millis", result.percentileMillis(99.9));
+            report.add(row);
+        });
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(
+                new File("target/api-load-benchmark.json"), report);
+    }
+
+    /**
+     * Picks the next request for a client. Reads are about 80% of the
+     * workload: single tasks, pages and whole lists, then updates, creates
+     * and logins.
+     * @param baseUri The URI of the application.
+     * @param user The user to make the request as.
+     * @return The request with its endpoint label.
+     */
+    private LoadGenerator.Request nextRequest(URI baseUri, SeededUser user) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long taskId = user.taskIds().get(random.nextInt(TASKS_PER_USER));
+        int pick = random.nextInt(100);
+        if (pick < 50) {
+            return new LoadGenerator.Request("GET /api/v1/task/{id}",
+                    authorised(baseUri.resolve("/api/v1/task/" + taskId),
+                            user).GET().build());
+        } else if (pick < 70) {
+            return new LoadGenerator.Request(
+                    "GET /api/v1/task/user/{id}?limit",
+                    authorised(baseUri.resolve("/api/v1/task/user/"
+                            + user.id() + "?limit=20"), user).GET().build());
+        } else if (pick < 80) {
+            return new LoadGenerator.Request("GET /api/v1/task/user/{id}",
+                    authorised(baseUri.resolve("/api/v1/task/user/"
+                            + user.id()), user).GET().build());
+        } else if (pick < 90) {
+            return new LoadGenerator.Request("PUT /api/v1/task/{id}",
+                    authorised(baseUri.resolve("/api/v1/task/" + taskId),
+                            user).PUT(json(Map.of(
+                                    "title", "task " + random.nextInt(1000),
+                                    "isComplete", random.nextBoolean()
+                            ))).build());
+        } else if (pick < 97) {
+            return new LoadGenerator.Request("POST /api/v1/task",
+                    authorised(baseUri.resolve("/api/v1/task"), user)
+                            .POST(json(Map.of(
+                                    "title", "new task",
+                                    "dueDate", LocalDate.now().toString()
+                            ))).build());
+        }
+        return new LoadGenerator.Request("POST /api/v1/auth/login",
+                HttpRequest.newBuilder(baseUri.resolve("/api/v1/auth/login"))
+                        .header("Content-Type", "application/json")
+                        .POST(json(Map.of(
+                                "email", user.email(),
+                                "password", "password"
+                        ))).build());
+    }
+
+    /**
+     * Registers the users and creates their tasks through the API.
+     * @param baseUri The URI of the application.
+     * @return The seeded users.
+     */
+    private List<SeededUser> seed(URI baseUri)
+            throws IOException, InterruptedException {
+        List<SeededUser> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            String email = "benchmark" + u + "@gmail.com";
+            JsonNode auth = send(HttpRequest.newBuilder(
+                    baseUri.resolve("/api/v1/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(Map.of(
+                            "name", "benchmark",
+                            "email", email,
+                            "password", "password"
+                    ))));
+            SeededUser user = new SeededUser(auth.get("id").asLong(), email,
+                    auth.get("token").asText(), new ArrayList<>());
+            for (int t = 0; t < TASKS_PER_USER; t++) {
+                user.taskIds().add(send(authorised(
+                        baseUri.resolve("/api/v1/task"), user)
+                        .POST(json(Map.of(
+                                "title", "task " + t,
+                                "dueDate", LocalDate.now().plusDays(t)
+                                        .toString()
+                        )))).get("Id").asLong());
+            }
+            users.add(user);
+        }
+        return users;
+    }
+
+    private HttpRequest.Builder authorised(URI uri, SeededUser user) {
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + user.token());
+    }
+
+    private HttpRequest.BodyPublisher json(Map<String, Object> body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(
+                    objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode send(HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body());
+    }
+}
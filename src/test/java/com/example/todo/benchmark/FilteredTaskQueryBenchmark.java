@@ -0,0 +1,117 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.task.Task;
+import com.example.todo.task.TaskFilter;
+import com.example.todo.task.TaskRepository;
+import com.example.todo.task.TaskService;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long it takes to list a user's overdue tasks as the number of
+ * tasks they have grows, while the number of overdue tasks stays the same.
+ * The filter is answered from the (user_id, is_complete, due_date, id) index
+ * so the time should stay flat rather than grow with the task count.
+ * Run with `./mvnw test -Pbenchmark`.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.url=jdbc:h2:mem:filtered-task-query-benchmark"
+})
+class FilteredTaskQueryBenchmark {
+    private static final int[] TASK_COUNTS = {1_000, 10_000, 50_000};
+    private static final int OVERDUE_TASKS = 20;
+    private static final int SAVE_BATCH_SIZE = 1_000;
+    private static final int WARMUP_QUERIES = 500;
+    private static final int MEASURED_QUERIES = 2_000;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void overdueTasks() {
+        LocalDate today = LocalDate.now();
+        TaskFilter overdue = TaskFilter.of(null, null, null, "true", null,
+                today);
+        for (int taskCount : TASK_COUNTS) {
+            User user = createUserWithTasks(taskCount, today);
+            for (int i = 0; i < WARMUP_QUERIES; i++) {
+                taskService.getUserTasks(user.getId(), overdue);
+            }
+            long[] nanos = new long[MEASURED_QUERIES];
+            int found = 0;
+            for (int i = 0; i < MEASURED_QUERIES; i++) {
+                long start = System.nanoTime();
+                found = taskService.getUserTasks(user.getId(), overdue).size();
+                nanos[i] = System.nanoTime() - start;
+            }
+            report(taskCount, found, nanos);
+        }
+    }
+
+    /**
+     * Creates a user whose tasks are almost all complete or not yet due,
+     * with a fixed number of overdue tasks among them.
+     */
+    private User createUserWithTasks(int taskCount, LocalDate today) {
+        User user = userRepository.save(new User("benchmark",
+                "benchmark" + taskCount + "@gmail.com", "password"));
+        List<Task> batch = new ArrayList<>(SAVE_BATCH_SIZE);
+        int overdueEvery = taskCount / OVERDUE_TASKS;
+        for (int i = 0; i < taskCount; i++) {
+            boolean isOverdue = i % overdueEvery == 0;
+            Task task = new Task(
+                    "task " + i,
+                    "description " + i,
+                    today.plusDays(i % 730 - 365),
+                    !isOverdue && i % 730 < 365
+            );
+            if (isOverdue) {
+                task.setDueDate(today.minusDays(1 + i % 365));
+            }
+            task.setUser(user);
+            batch.add(task);
+            if (batch.size() == SAVE_BATCH_SIZE) {
+                taskRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        taskRepository.saveAll(batch);
+        return user;
+    }
+
+    private void report(int taskCount, int found, long[] nanos) {
+        Arrays.sort(nanos);
+        double averageMillis = Arrays.stream(nanos).average().orElse(0) / 1e6;
+        System.out.printf(
+                "[benchmark] overdue tasks of %d: %d found, avg %.3f ms,"
+                        + " p50 %.3f ms, p99 %.3f ms%n",
+                taskCount,
+                found,
+                averageMillis,
+                nanos[nanos.length / 2] / 1e6,
+                nanos[nanos.length * 99 / 100] / 1e6
+        );
+    }
+}
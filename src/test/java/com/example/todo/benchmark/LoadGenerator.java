@@ -0,0 +1,207 @@
+package com.example.todo.benchmark;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
+
+/**
+ * An open-loop HTTP load generator for the benchmarks. Requests are sent at a
+ * fixed target rate, shared between a fixed number of clients, until the time
+ * is up. Each request has an intended send time on its client's schedule and
+ * its latency is measured from then rather than from when it was actually
+ * sent, so a slow response that holds up the client's next requests counts
+ * against them too instead of hiding the stall (coordinated omission).
+ */
+public class LoadGenerator {
+    private final HttpClient client;
+    private final int clients;
+    private final long intervalNanos;
+
+    /**
+     * @param clients The number of clients sending requests concurrently.
+     * There should be enough to keep up with the rate while the server is
+     * responding normally.
+     * @param requestsPerSecond The target rate of all the clients together.
+     */
+    public LoadGenerator(int clients, int requestsPerSecond) {
+        this.clients = clients;
+        this.intervalNanos = clients * 1_000_000_000L / requestsPerSecond;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Sends requests from all the clients for the given duration.
+     * @param duration How long to send requests for.
+     * @param requests Creates the next request for a client, given the
+     * number of requests the client has sent so far.
+     * @return The results of the run.
+     * @throws InterruptedException If interrupted while waiting for the
+     * clients to finish.
+     */
+    public LoadResult run(Duration duration, IntFunction<HttpRequest> requests)
+            throws InterruptedException {
+        return runMixed(duration, n -> new Request("all", requests.apply(n)))
+                .get("all");
+    }
+
+    /**
+     * Sends a mix of requests from all the clients for the given duration,
+     * and records the results for each endpoint separately.
+     * @param duration How long to send requests for.
+     * @param requests Creates the next request for a client, given the
+     * number of requests the client has sent so far.
+     * @return The results of the run for each endpoint, sorted by endpoint.
+     * @throws InterruptedException If interrupted while waiting for the
+     * clients to finish.
+     */
+    public Map<String, LoadResult> runMixed(Duration duration,
+            IntFunction<Request> requests) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Map<String, LatencyRecorder>> recorders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Map<String, LatencyRecorder> clientRecorders = new HashMap<>();
+            // The clients' schedules are staggered so the requests are spread
+            // evenly over each interval
+            long firstSend = start + intervalNanos * i / clients;
+            Thread thread = new Thread(() -> {
+                long intended = firstSend;
+                for (int n = 0; intended < deadline; n++) {
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Request request = requests.apply(n);
+                    LatencyRecorder recorder = clientRecorders.computeIfAbsent(
+                            request.endpoint(), e -> new LatencyRecorder());
+                    try {
+                        HttpResponse<Void> response = client.send(
+                                request.request(),
+                                HttpResponse.BodyHandlers.discarding()
+                        );
+                        // Failed requests are counted but their latency is
+                        // left out of the percentiles
+                        if (response.statusCode() >= 400) {
+                            recorder.errors++;
+                        } else {
+                            recorder.record(System.nanoTime() - intended);
+                        }
+                    } catch (IOException e) {
+                        recorder.errors++;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    intended += intervalNanos;
+                }
+            }, "load-client-" + i);
+            recorders.add(clientRecorders);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, List<LatencyRecorder>> byEndpoint = new TreeMap<>();
+        for (Map<String, LatencyRecorder> clientRecorders : recorders) {
+            clientRecorders.forEach((endpoint, recorder) -> byEndpoint
+                    .computeIfAbsent(endpoint, e -> new ArrayList<>())
+                    .add(recorder));
+        }
+        Map<String, LoadResult> results = new LinkedHashMap<>();
+        byEndpoint.forEach((endpoint, endpointRecorders) -> results.put(
+                endpoint,
+                new LoadResult(
+                        endpointRecorders.stream()
+                                .flatMapToLong(LatencyRecorder::values)
+                                .sorted()
+                                .toArray(),
+                        endpointRecorders.stream()
+                                .mapToLong(recorder -> recorder.errors)
+                                .sum(),
+                        elapsed
+                )
+        ));
+        return results;
+    }
+
+    /**
+     * A request to send, labelled with the endpoint its results are
+     * recorded under.
+     * @param endpoint The endpoint label, e.g. "GET /api/v1/task/{id}".
+     * @param request The request.
+     */
+    public record Request(String endpoint, HttpRequest request) {}
+
+    /**
+     * The latencies and errors recorded by one client for one endpoint.
+     */
+    private static class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long latency) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latency;
+        }
+
+        LongStream values() {
+            return Arrays.stream(values, 0, size);
+        }
+    }
+
+    /**
+     * The results of a load run.
+     * @param latencies The sorted latency of each successful request in
+     * nanoseconds, from when it was meant to be sent.
+     * @param errors The number of requests that failed or had an error
+     * status.
+     * @param elapsedNanos How long the run took.
+     */
+    public record LoadResult(long[] latencies, long errors, long elapsedNanos) {
+        public long requests() {
+            return latencies.length + errors;
+        }
+
+        /**
+         * @return The number of successful requests per second.
+         */
+        public double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Gets a latency percentile.
+         * @param percentile The percentile, e.g. 99.9.
+         * @return The latency in milliseconds.
+         */
+        public double percentileMillis(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length)
+                    - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
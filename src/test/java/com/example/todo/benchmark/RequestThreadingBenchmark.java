@@ -0,0 +1,127 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.TodoApplication;
+import com.example.todo.config.VirtualThreadConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares the throughput and latency of authenticated task reads with
+ * requests on Tomcat's platform thread pool and on virtual threads (the
+ * "virtual" profile), with more concurrent clients than Tomcat has request
+ * threads sending at a fixed rate. The virtual thread run is skipped on JVMs older than Java 21.
+ * Run with `./mvnw test -Pbenchmark`.
+ */
+@Tag("benchmark")
+class RequestThreadingBenchmark {
+    private static final int CLIENTS = 400;
+    private static final int RATE = 4_000;
+    private static final int TASKS = 50;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASURED = Duration.ofSeconds(15);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void platformThreads() throws Exception {
+        run("platform threads");
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        assumeTrue(VirtualThreadConfig.isSupported(),
+                "Virtual threads need Java 21 or later");
+        run("virtual threads", "virtual");
+    }
+
+    private void run(String mode, String... profiles) throws Exception {
+        try (ConfigurableApplicationContext context =
+                     new SpringApplicationBuilder(TodoApplication.class)
+                             .profiles(profiles)
+                             .properties(
+                                     "server.port=0",
+                                     "spring.jpa.show-sql=false"
+                             )
+                             .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer()
+                    .getPort();
+            URI baseUri = URI.create("http://localhost:" + port);
+            JsonNode auth = post(baseUri.resolve("/api/v1/auth/register"),
+                    Map.of(
+                            "name", "benchmark",
+                            "email", "benchmark@gmail.com",
+                            "password", "password"
+                    ), null);
+            String token = auth.get("token").asText();
+            long userId = auth.get("id").asLong();
+            List<Long> taskIds = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                taskIds.add(post(baseUri.resolve("/api/v1/task"), Map.of(
+                        "title", "task " + i,
+                        "dueDate", LocalDate.now().plusDays(i).toString()
+                ), token).get("Id").asLong());
+            }
+
+            // Mostly single task reads (a query each) with some list reads
+            LoadGenerator load = new LoadGenerator(CLIENTS, RATE);
+            LoadGenerator.LoadResult result = null;
+            for (Duration duration : List.of(WARMUP, MEASURED)) {
+                result = load.run(duration, n -> {
+                    String path = n % 5 == 0
+                            ? "/api/v1/task/user/" + userId
+                            : "/api/v1/task/" + taskIds.get(n % TASKS);
+                    return HttpRequest.newBuilder(baseUri.resolve(path))
+                            .header("Authorization", "Bearer " + token)
+                            .GET()
+                            .build();
+                });
+            }
+            System.out.printf(
+                    "[benchmark] requests (%s, %d clients at %d req/s):"
+                            + " %.0f req/s, p50 %.2f ms, p99 %.2f ms,"
+                            + " %d errors%n",
+                    mode,
+                    CLIENTS,
+                    RATE,
+                    result.throughput(),
+                    result.percentileMillis(50),
+                    result.percentileMillis(99),
+                    result.errors()
+            );
+        }
+    }
+
+    private JsonNode post(URI uri, Map<String, String> body, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(body)
+                ));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(request.build(),
+                HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body());
+    }
+}
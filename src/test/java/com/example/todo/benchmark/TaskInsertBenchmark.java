@@ -0,0 +1,122 @@
+package com.example.todo.benchmark;
+
+import com.example.todo.task.BatchTaskPayload;
+import com.example.todo.task.NewTaskPayload;
+import com.example.todo.task.TaskRepository;
+import com.example.todo.task.TaskService;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the insert throughput of creating tasks one at a time and in
+ * batches, along with the number of JDBC statements each task costs.
+ * Run with `./mvnw test -Pbenchmark`.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TaskInsertBenchmark {
+    private static final int WARMUP_TASKS = 2_000;
+    private static final int MEASURED_TASKS = 10_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class)
+                .getStatistics();
+        user = userRepository.save(
+                new User("benchmark", "benchmark@gmail.com", "password")
+        );
+        taskService.createTaskListVersion(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAllInBatch();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void singleTaskCreation() {
+        createTasksOneAtATime(WARMUP_TASKS);
+        statistics.clear();
+        long start = System.nanoTime();
+        createTasksOneAtATime(MEASURED_TASKS);
+        report("single", System.nanoTime() - start);
+    }
+
+    @Test
+    void batchTaskCreation() {
+        createTasksInBatches(WARMUP_TASKS);
+        statistics.clear();
+        long start = System.nanoTime();
+        createTasksInBatches(MEASURED_TASKS);
+        report("batch", System.nanoTime() - start);
+    }
+
+    private void createTasksOneAtATime(int count) {
+        for (int i = 0; i < count; i++) {
+            taskService.createTask(newTaskPayload(i), user);
+        }
+    }
+
+    private void createTasksInBatches(int count) {
+        for (int i = 0; i < count; i += BATCH_SIZE) {
+            List<NewTaskPayload> batch = new ArrayList<>();
+            for (int j = i; j < Math.min(count, i + BATCH_SIZE); j++) {
+                batch.add(newTaskPayload(j));
+            }
+            taskService.applyBatch(
+                    new BatchTaskPayload(batch, null, null),
+                    user
+            );
+        }
+    }
+
+    private NewTaskPayload newTaskPayload(int i) {
+        return new NewTaskPayload(
+                "task " + i,
+                "description " + i,
+                LocalDate.now().plusDays(i % 365)
+        );
+    }
+
+    private void report(String mode, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(
+                "[benchmark] task insert (%s): %d tasks in %.3f s = %.0f tasks/s,"
+                        + " %.2f JDBC statements per task%n",
+                mode,
+                MEASURED_TASKS,
+                seconds,
+                MEASURED_TASKS / seconds,
+                (double) statistics.getPrepareStatementCount() / MEASURED_TASKS
+        );
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.todo.benchmark.jmh;
+
+import com.example.todo.config.JwtUtils;
+import com.example.todo.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures signing a token on login and reading it back on each request.
+ * Verified tokens are cached, so extractUsername() and isTokenValid() measure
+ * the cached path every authenticated request takes after the first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+    private static final String SECRET_KEY = "R4BwjPAspHioHnM8wILoJHDnPpqR/fPltI9/0rySr0hHe+6i8+xBNIXmF+PFKIogQ358vif/DFmcmBmswuxAsg==";
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils(new MockEnvironment()
+                .withProperty("jwt.secret-key", SECRET_KEY),
+                new SimpleMeterRegistry());
+        user = new User("test", "test@gmail.com", "password");
+        user.setId(1L);
+        token = jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtUtils.isTokenValid(token, user);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.todo.benchmark.jmh;
+
+import com.example.todo.config.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost the rate limiter adds to each login and register request,
+ * for a single hot key and for keys spread over many buckets, on one thread
+ * and with threads contending for the same buckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    @Param({"1", "10000"})
+    private int keys;
+
+    private RateLimiter rateLimiter;
+    private String[] keyNames;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup
+    public void setUp() {
+        // A limit high enough that every request takes the allowed path
+        rateLimiter = new RateLimiter(Long.MAX_VALUE / 2, 1_000_000, 100_000);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long tryAcquire(Cursor cursor) {
+        return rateLimiter.tryAcquire(
+                keyNames[cursor.next++ % keyNames.length]
+        );
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tryAcquireContended(Cursor cursor) {
+        return rateLimiter.tryAcquire(
+                keyNames[cursor.next++ % keyNames.length]
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.todo.benchmark.jmh;
+
+import com.example.todo.task.Task;
+import com.example.todo.task.TaskDTO;
+import com.example.todo.task.TaskListVersionRepository;
+import com.example.todo.task.TaskRepository;
+import com.example.todo.task.TaskService;
+import com.example.todo.task.UpdateTaskPayload;
+import com.example.todo.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures mapping a task to its DTO and diffing an update payload against a
+ * task, without a database. The repositories are stubbed with proxies which
+ * do nothing, so updateTaskChanged() only adds the cost of a method call for
+ * the task list version bump.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskMappingBenchmark {
+    private TaskService taskService;
+    private Task task;
+    private UpdateTaskPayload unchangedPayload;
+    private UpdateTaskPayload[] changedPayloads;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        taskService = new TaskService(
+                stub(TaskRepository.class),
+                stub(TaskListVersionRepository.class),
+                event -> {},
+                new ConcurrentMapCacheManager()
+        );
+        User user = new User("test", "test@gmail.com", "password");
+        user.setId(1L);
+        task = new Task("Title", "A description of the task",
+                LocalDate.of(2024, 1, 1), false);
+        task.setId(1L);
+        task.setVersion(0L);
+        task.setUser(user);
+        unchangedPayload = new UpdateTaskPayload(" Title ",
+                "A description of the task", LocalDate.of(2024, 1, 1), false);
+        // Alternate between two payloads so every update changes the task
+        changedPayloads = new UpdateTaskPayload[] {
+                new UpdateTaskPayload("Other title", null,
+                        LocalDate.of(2024, 1, 2), true),
+                new UpdateTaskPayload("Title", null,
+                        LocalDate.of(2024, 1, 1), false)
+        };
+    }
+
+    /**
+     * Creates a repository whose methods do nothing and return 1 for int
+     * results (the rows updated) and null otherwise.
+     * @param type The repository interface.
+     * @return A stub of the repository.
+     */
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                (proxy, method, args) ->
+                        method.getReturnType() == int.class ? 1 : null
+        ));
+    }
+
+    @Benchmark
+    public TaskDTO toDTO() {
+        return task.toDTO();
+    }
+
+    @Benchmark
+    public Task updateTaskUnchanged() {
+        return taskService.updateTask(task, unchangedPayload);
+    }
+
+    @Benchmark
+    public Task updateTaskChanged() {
+        return taskService.updateTask(task, changedPayloads[next++ & 1]);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.todo.benchmark.jmh;
+
+import com.example.todo.task.Task;
+import com.example.todo.task.TaskChangedEvent;
+import com.example.todo.task.TaskDTO;
+import com.example.todo.task.TaskRepository;
+import com.example.todo.task.TaskSearchIndex;
+import com.example.todo.user.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures searching one user's tasks with the {@link TaskSearchIndex} as the
+ * number of tasks grows. Only {@link #MATCHING_TASKS} tasks have the searched
+ * word, so the time should stay the same whatever the number of tasks, and
+ * well under a millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSearchBenchmark {
+    private static final int MATCHING_TASKS = 20;
+    private static final String[] WORDS = {
+            "buy", "call", "email", "fix", "write", "review", "plan", "book",
+            "clean", "pay", "order", "send", "update", "check", "meet",
+            "milk", "bread", "report", "car", "doctor", "bill", "team",
+            "garden", "kitchen", "slides", "budget", "ticket", "dentist"
+    };
+    private static final long USER_ID = 1L;
+
+    @Param({"1000", "100000"})
+    private int tasks;
+
+    private TaskSearchIndex index;
+    private Task updatedTask;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // Not started by Spring, so the index is built from a mocked
+        // repository instead of a database
+        TaskRepository taskRepository = mock(TaskRepository.class);
+        index = new TaskSearchIndex(taskRepository,
+                mock(PlatformTransactionManager.class),
+                new StandardEnvironment(), new SimpleMeterRegistry());
+        List<TaskDTO> userTasks = new ArrayList<>();
+        User user = new User("test", "test@gmail.com", "password");
+        user.setId(USER_ID);
+        Random random = new Random(42);
+        for (long id = 1; id <= tasks; id++) {
+            String title = words(random, 3);
+            if (id % (tasks / MATCHING_TASKS) == 0) {
+                title += " invoice";
+            }
+            Task task = new Task(title, words(random, 8),
+                    LocalDate.of(2024, 1, 1).plusDays(id % 365), false);
+            task.setId(id);
+            task.setVersion(0L);
+            task.setUser(user);
+            userTasks.add(task.toDTO());
+            updatedTask = task;
+        }
+        given(taskRepository.streamAllByUserId(USER_ID))
+                .willAnswer(invocation -> userTasks.stream());
+        // The first search loads the user's index
+        index.search(USER_ID, "invoice", 1);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    @Benchmark
+    public List<TaskDTO> searchWord() {
+        return index.search(USER_ID, "invoice", 20);
+    }
+
+    @Benchmark
+    public List<TaskDTO> searchPrefix() {
+        return index.search(USER_ID, "invo", 20);
+    }
+
+    @Benchmark
+    public List<TaskDTO> searchTwoWords() {
+        return index.search(USER_ID, "invoice buy", 20);
+    }
+
+    @Benchmark
+    public void reindexTask() {
+        updatedTask.setTitle((next++ & 1) == 0 ? "pay invoice" : "pay bill");
+        index.onTaskChanged(new TaskChangedEvent(USER_ID, null, updatedTask));
+    }
+}
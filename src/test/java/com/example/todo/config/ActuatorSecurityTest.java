@@ -0,0 +1,62 @@
+package com.example.todo.config;
+
+import com.example.todo.user.Role;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the metrics endpoints are never served when the actuator
+ * shares the application port (no management.server.port is set).
+ */
+// Its own database so the schema isn't recreated under the other contexts
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:actuator")
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Test
+    void prometheus_itShouldRejectEveryRequestOnTheApplicationPort()
+            throws Exception {
+        // Given a user's token and an admin's token
+        User user = userRepository.save(new User("user",
+                "user@gmail.com", "password"));
+        User admin = new User("admin", "admin@gmail.com", "password");
+        admin.setRole(Role.ADMIN);
+        userRepository.save(admin);
+        // When the metrics endpoints are requested without a token and with
+        // either token
+        // Then the requests are rejected
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+        for (User requester : new User[] {user, admin}) {
+            String token = jwtUtils.generateToken(requester);
+            mockMvc.perform(get("/actuator/prometheus")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(get("/actuator/metrics")
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    void health_itShouldNotRequireAToken() throws Exception {
+        // When the health endpoint is probed without a token
+        // Then it responds
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+}
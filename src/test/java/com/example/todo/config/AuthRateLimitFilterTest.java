@@ -0,0 +1,90 @@
+package com.example.todo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthRateLimitFilterTest {
+    private AuthRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("auth.rate-limit.ip.burst", "3")
+                .withProperty("auth.rate-limit.email.burst", "2");
+        filter = new AuthRateLimitFilter(environment, new ObjectMapper(),
+                new SimpleMeterRegistry());
+    }
+
+    private MockHttpServletResponse login(String ip, String email)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(
+                "POST", "/api/v1/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContent(("{\"email\":\"" + email
+                + "\",\"password\":\"password\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (chain.getRequest() != null) {
+            // The body can still be read after the filter has parsed it
+            assertThat(new String(chain.getRequest().getInputStream()
+                    .readAllBytes(), StandardCharsets.UTF_8))
+                    .contains(email);
+        }
+        return response;
+    }
+
+    @Test
+    void doFilter_itShouldRejectRequestsFromAnIpOverItsLimit() throws Exception {
+        // Given an IP which has made as many requests as its burst allows
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1", "user" + i + "@gmail.com")
+                    .getStatus()).isEqualTo(200);
+        }
+        // When it makes another request for a different email
+        MockHttpServletResponse response = login("10.0.0.1", "new@gmail.com");
+        // Then it gets a 429 with a Retry-After header
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+    }
+
+    @Test
+    void doFilter_itShouldRejectRequestsForAnEmailOverItsLimitFromAnyIp()
+            throws Exception {
+        // Given an email which has been used as many times as its burst allows
+        login("10.0.0.1", "test@gmail.com");
+        login("10.0.0.2", "test@gmail.com");
+        // When it is used again from another IP, in a different case
+        MockHttpServletResponse response = login("10.0.0.3",
+                " Test@Gmail.com");
+        // Then it gets a 429
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void doFilter_itShouldNotLimitOtherEndpoints() throws Exception {
+        // Given requests to an endpoint which isn't rate limited
+        MockHttpServletResponse response = null;
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest(
+                    "GET", "/api/v1/task/1");
+            response = new MockHttpServletResponse();
+            // When they pass through the filter
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+        // Then none of them are rejected
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+}
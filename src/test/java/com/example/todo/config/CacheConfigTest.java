@@ -0,0 +1,98 @@
+package com.example.todo.config;
+
+import com.example.todo.task.NewTaskPayload;
+import com.example.todo.task.Task;
+import com.example.todo.task.TaskRepository;
+import com.example.todo.task.TaskService;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CacheConfigTest {
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.USER_TASKS_CACHE).clear();
+    }
+
+    @Test
+    void createTask_itShouldPutTheTaskInTheSecondLevelCache() {
+        // Given a user
+        User user = userRepository.save(
+                new User("test", "test@gmail.com", "password")
+        );
+        taskService.createTaskListVersion(user.getId());
+        // When a task is created
+        Task task = taskService.createTask(
+                new NewTaskPayload("task", "", LocalDate.now()),
+                user
+        );
+        // Then the task is in the second-level cache after the commit
+        assertThat(entityManagerFactory.getCache()
+                .contains(Task.class, task.getId())).isTrue();
+    }
+
+    @Test
+    void getUserTasks_itShouldCacheTheListUntilATaskIsCreated() {
+        // Given a user's task list has been read
+        User user = userRepository.save(
+                new User("test", "test@gmail.com", "password")
+        );
+        taskService.createTaskListVersion(user.getId());
+        taskService.getUserTasks(user.getId(), 0L);
+        assertThat(cacheManager.getCache(CacheConfig.USER_TASKS_CACHE)
+                .get(user.getId())).isNotNull();
+        // When the user creates a task
+        taskService.createTask(
+                new NewTaskPayload("task", "", LocalDate.now()),
+                user
+        );
+        // Then the cached list is evicted and the next read includes the task
+        assertThat(cacheManager.getCache(CacheConfig.USER_TASKS_CACHE)
+                .get(user.getId())).isNull();
+        assertThat(taskService.getUserTasks(user.getId(), 1L).tasks())
+                .hasSize(1);
+    }
+
+    @Test
+    void cacheMetrics_itShouldPublishHitAndEvictionMetricsForEachCache() {
+        // Given the application has started
+        // When the cache metrics are looked up
+        // Then there are hit and eviction metrics for every cache
+        for (String cache : new String[] {
+                Task.class.getName(),
+                User.class.getName(),
+                CacheConfig.USER_TASKS_CACHE
+        }) {
+            assertThat(meterRegistry.find("cache.gets").tag("cache", cache)
+                    .tag("result", "hit").meters()).isNotEmpty();
+            assertThat(meterRegistry.find("cache.evictions")
+                    .tag("cache", cache).meters()).isNotEmpty();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.todo.config;
+
+import com.example.todo.auth.AuthenticatedUser;
+import com.example.todo.user.Role;
+import com.example.todo.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+    private static final String SECRET_KEY = "R4BwjPAspHioHnM8wILoJHDnPpqR/fPltI9/0rySr0hHe+6i8+xBNIXmF+PFKIogQ358vif/DFmcmBmswuxAsg==";
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("jwt.secret-key", SECRET_KEY);
+        jwtUtils = new JwtUtils(environment, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void extractUsername_itShouldReturnTheEmailOfTheUserTheTokenWasGeneratedFor() {
+        // Given a token generated for a user
+        User user = new User("test", "test@gmail.com", "password");
+        String token = jwtUtils.generateToken(user);
+        // When extractUsername() is called
+        String username = jwtUtils.extractUsername(token);
+        // Then the email of the user is returned
+        assertThat(username).isEqualTo(user.getEmail());
+    }
+
+    @Test
+    void isTokenValid_itShouldReturnTrueForATokenGeneratedForTheUser() {
+        // Given a token generated for a user
+        User user = new User("test", "test@gmail.com", "password");
+        String token = jwtUtils.generateToken(user);
+        // When isTokenValid() is called with the same user
+        boolean isValid = jwtUtils.isTokenValid(token, user);
+        // Then the token is valid
+        assertThat(isValid).isTrue();
+    }
+
+    @Test
+    void isTokenValid_itShouldReturnFalseForATokenGeneratedForAnotherUser() {
+        // Given a token generated for a different user
+        User user = new User("test", "test@gmail.com", "password");
+        User otherUser = new User("other", "other@gmail.com", "password");
+        String token = jwtUtils.generateToken(otherUser);
+        // When isTokenValid() is called
+        boolean isValid = jwtUtils.isTokenValid(token, user);
+        // Then the token is not valid
+        assertThat(isValid).isFalse();
+    }
+
+    @Test
+    void verifyToken_itShouldReturnTheSameClaimsWhenTheTokenIsVerifiedAgain() {
+        // Given a token that has already been verified
+        User user = new User("test", "test@gmail.com", "password");
+        String token = jwtUtils.generateToken(user);
+        Optional<Claims> firstResult = jwtUtils.verifyToken(token);
+        // When verifyToken() is called again with the same token
+        Optional<Claims> secondResult = jwtUtils.verifyToken(token);
+        // Then the cached claims are returned instead of parsing it again
+        assertThat(secondResult).isPresent();
+        assertThat(secondResult.get()).isSameAs(firstResult.get());
+    }
+
+    @Test
+    void verifyToken_itShouldReturnAnEmptyObjectIfTheTokenHasBeenTamperedWith() {
+        // Given a token with a modified signature
+        User user = new User("test", "test@gmail.com", "password");
+        String token = jwtUtils.generateToken(user);
+        String tamperedToken = token.substring(0, token.length() - 2) + "xx";
+        // When verifyToken() is called
+        Optional<Claims> claims = jwtUtils.verifyToken(tamperedToken);
+        // Then the result is empty
+        assertThat(claims).isEmpty();
+    }
+
+    @Test
+    void verifyToken_itShouldReturnAnEmptyObjectIfTheTokenIsExpired() {
+        // Given a token that expired a minute ago
+        long now = System.currentTimeMillis();
+        String token = Jwts
+                .builder()
+                .setSubject("test@gmail.com")
+                .setIssuedAt(new Date(now - 120_000))
+                .setExpiration(new Date(now - 60_000))
+                .signWith(
+                        Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)),
+                        SignatureAlgorithm.HS256
+                )
+                .compact();
+        // When verifyToken() is called
+        Optional<Claims> claims = jwtUtils.verifyToken(token);
+        // Then the result is empty
+        assertThat(claims).isEmpty();
+    }
+
+    @Test
+    void verifyToken_itShouldReturnAnEmptyObjectIfTheTokenHasNoExpiration() {
+        // Given a signed token without an expiration
+        String token = Jwts
+                .builder()
+                .setSubject("test@gmail.com")
+                .setIssuedAt(new Date())
+                .signWith(
+                        Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)),
+                        SignatureAlgorithm.HS256
+                )
+                .compact();
+        // When verifyToken() is called
+        Optional<Claims> claims = jwtUtils.verifyToken(token);
+        // Then the result is empty
+        assertThat(claims).isEmpty();
+    }
+
+    @Test
+    void extractPrincipal_itShouldBuildAPrincipalFromTheUserIdAndRoleClaims() {
+        // Given a token generated for a saved user
+        User user = new User("test", "test@gmail.com", "password");
+        user.setId(1L);
+        String token = jwtUtils.generateToken(user);
+        Claims claims = jwtUtils.verifyToken(token).orElseThrow();
+        // When extractPrincipal() is called with the claims from the token
+        Optional<AuthenticatedUser> principal = jwtUtils
+                .extractPrincipal(claims);
+        // Then the principal has the user's ID, email and role
+        assertThat(principal).contains(
+                new AuthenticatedUser(1L, "test@gmail.com", Role.USER)
+        );
+    }
+
+    @Test
+    void extractPrincipal_itShouldReturnAnEmptyObjectIfTheTokenHasNoUserIdClaim() {
+        // Given a token generated for a user without an ID
+        User user = new User("test", "test@gmail.com", "password");
+        String token = jwtUtils.generateToken(user);
+        Claims claims = jwtUtils.verifyToken(token).orElseThrow();
+        // When extractPrincipal() is called with the claims from the token
+        Optional<AuthenticatedUser> principal = jwtUtils
+                .extractPrincipal(claims);
+        // Then the result is empty
+        assertThat(principal).isEmpty();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Its own database so the schema isn't recreated under the other contexts,
+// and the actuator endpoints on their own port like in production
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:metrics",
+                "management.server.port=0"
+        }
+)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @LocalServerPort
+    private int port;
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void prometheus_itShouldExposeTheRequestStageMetricsOnTheManagementPort()
+            throws Exception {
+        // Given a user who registered and requested a task that doesn't exist
+        String token = mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "test", "email": "test@gmail.com",
+                                 "password": "password"}"""))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString()
+                .replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+        mockMvc.perform(get("/api/v1/task/999")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound());
+        // When the Prometheus endpoint is scraped on the management port
+        // without a token
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/prometheus",
+                String.class);
+        // Then it has the endpoint, query, hashing, JWT and error metrics
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds_bucket")
+                .contains("spring_data_repository_invocations_seconds_bucket")
+                .contains("auth_hashing_duration_seconds_bucket")
+                .contains("jwt_verify_seconds_bucket")
+                .contains("auth_user_resolve_seconds_count")
+                .contains("api_errors_total{exception=\"NotFoundException\"");
+    }
+
+    @Test
+    void prometheus_itShouldNotBeServedOnTheApplicationPort() {
+        // When the metrics endpoints are requested on the application port
+        // Then they aren't served
+        for (String endpoint : new String[] {"prometheus", "metrics"}) {
+            assertThat(restTemplate.getForEntity(
+                    "http://localhost:" + port + "/actuator/" + endpoint,
+                    String.class).getStatusCode().is4xxClientError())
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void health_itShouldNotRequireAToken() {
+        // When the health endpoint is probed on the management port without
+        // a token
+        // Then it responds
+        assertThat(restTemplate.getForEntity(
+                "http://localhost:" + managementPort + "/actuator/health",
+                String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.todo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordEncoderCalibratorTest {
+    @Test
+    void workFactorForTarget_itShouldAddOneBCryptCostForEachDoublingOfTheTarget() {
+        // Given a hash takes 10 ms at cost 8
+        long baseNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        // When the cost is worked out for a target of 80 ms
+        int cost = PasswordEncoderCalibrator.workFactorForTarget(8, baseNanos,
+                TimeUnit.MILLISECONDS.toNanos(80), true, 4, 31);
+        // Then the cost is 11
+        assertThat(cost).isEqualTo(11);
+    }
+
+    @Test
+    void workFactorForTarget_itShouldKeepTheWorkFactorWithinTheLimits() {
+        // Given a hash takes 10 ms at cost 8
+        long baseNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        // When the cost is worked out for a tiny and a huge target
+        int low = PasswordEncoderCalibrator.workFactorForTarget(8, baseNanos,
+                TimeUnit.MILLISECONDS.toNanos(1), true, 10, 16);
+        int high = PasswordEncoderCalibrator.workFactorForTarget(8, baseNanos,
+                TimeUnit.SECONDS.toNanos(100), true, 10, 16);
+        // Then they are clamped to the minimum and maximum
+        assertThat(low).isEqualTo(10);
+        assertThat(high).isEqualTo(16);
+    }
+
+    @Test
+    void createPasswordEncoder_itShouldMatchAndUpgradeHashesWithADifferentCost() {
+        // Given an encoder fixed to cost 5 and a hash with cost 4
+        PasswordEncoder passwordEncoder = new PasswordEncoderCalibrator(
+                new MockEnvironment().withProperty(
+                        "auth.password.bcrypt.cost", "5")
+        ).createPasswordEncoder();
+        String oldHash = "{bcrypt}" + new BCryptPasswordEncoder(4)
+                .encode("password");
+        // When the hashes are checked
+        // Then the old hash still matches but should be upgraded, and a new
+        // hash shouldn't
+        assertThat(passwordEncoder.matches("password", oldHash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(oldHash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(
+                passwordEncoder.encode("password"))).isFalse();
+    }
+
+    @Test
+    void createPasswordEncoder_itShouldDowngradeHashesWithAHigherFixedWorkFactor() {
+        // Given encoders fixed to bcrypt cost 4 and argon2 with 1 MB and 2
+        // iterations, and hashes made with a higher work factor
+        PasswordEncoder bcrypt = new PasswordEncoderCalibrator(
+                new MockEnvironment().withProperty(
+                        "auth.password.bcrypt.cost", "4")
+        ).createPasswordEncoder();
+        PasswordEncoder argon2 = new PasswordEncoderCalibrator(
+                new MockEnvironment()
+                        .withProperty("auth.password.encoder", "argon2")
+                        .withProperty("auth.password.argon2.memory-kb", "1024")
+                        .withProperty("auth.password.argon2.iterations", "2")
+        ).createPasswordEncoder();
+        String bcryptHash = "{bcrypt}" + new BCryptPasswordEncoder(5)
+                .encode("password");
+        String argon2Hash = "{argon2}" + new Argon2PasswordEncoder(16, 32, 1,
+                1024, 3).encode("password");
+        String argon2MemoryHash = "{argon2}" + new Argon2PasswordEncoder(16,
+                32, 1, 2048, 2).encode("password");
+        // When the hashes are checked
+        // Then they match and should be rehashed with the lower work factor
+        assertThat(bcrypt.matches("password", bcryptHash)).isTrue();
+        assertThat(bcrypt.upgradeEncoding(bcryptHash)).isTrue();
+        assertThat(argon2.matches("password", argon2Hash)).isTrue();
+        assertThat(argon2.upgradeEncoding(argon2Hash)).isTrue();
+        assertThat(argon2.upgradeEncoding(argon2MemoryHash)).isTrue();
+    }
+
+    @Test
+    void createPasswordEncoder_itShouldKeepHashesWithinTheToleranceOfACalibratedCost() {
+        // Given an encoder calibrated to bcrypt cost 4 (the only cost
+        // allowed) with a tolerance of one
+        PasswordEncoder passwordEncoder = new PasswordEncoderCalibrator(
+                new MockEnvironment()
+                        .withProperty("auth.password.bcrypt.min-cost", "4")
+                        .withProperty("auth.password.bcrypt.max-cost", "4")
+                        .withProperty("auth.password.calibration-tolerance",
+                                "1")
+        ).createPasswordEncoder();
+        // When hashes one and two costs higher are checked
+        // Then the hash from a node calibrated a step higher is kept, and
+        // the other is rehashed down to the calibrated cost
+        assertThat(passwordEncoder.upgradeEncoding("{bcrypt}"
+                + new BCryptPasswordEncoder(5).encode("password"))).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("{bcrypt}"
+                + new BCryptPasswordEncoder(6).encode("password"))).isTrue();
+    }
+
+    @Test
+    void createPasswordEncoder_itShouldCheckUnprefixedBCryptHashesWithArgon2Selected() {
+        // Given argon2 is selected and a bcrypt hash from before the {id}
+        // prefix was added
+        PasswordEncoder passwordEncoder = new PasswordEncoderCalibrator(
+                new MockEnvironment()
+                        .withProperty("auth.password.encoder", "argon2")
+                        .withProperty("auth.password.argon2.memory-kb", "1024")
+                        .withProperty("auth.password.argon2.iterations", "2")
+        ).createPasswordEncoder();
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password");
+        // When the hash is checked
+        // Then it matches and should be rehashed with argon2
+        assertThat(passwordEncoder.matches("password", legacyHash)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(legacyHash)).isTrue();
+        assertThat(passwordEncoder.encode("password")).startsWith("{argon2}");
+    }
+}
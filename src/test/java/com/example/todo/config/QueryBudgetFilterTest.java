@@ -0,0 +1,135 @@
+package com.example.todo.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryBudgetFilterTest {
+    private final QueryCountInspector inspector = new QueryCountInspector();
+    private QueryBudgetFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("query-guard.max-statements", "3")
+                .withProperty("query-guard.repeated-statement-threshold", "2")
+                .withProperty("query-guard.fail-on-violation", "true");
+        filter = new QueryBudgetFilter(environment, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Runs a request through the filter which prepares the given statements.
+     */
+    private MockHttpServletRequest run(List<String> statements)
+            throws Exception {
+        return run(statements, new MockHttpServletResponse());
+    }
+
+    /**
+     * Runs a request through the filter which prepares the given statements
+     * and then writes its response.
+     */
+    private MockHttpServletRequest run(List<String> statements,
+            MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(
+                "GET", "/api/v1/task/1");
+        filter.doFilter(request, response,
+                new MockFilterChain(new HttpServlet() {
+                    @Override
+                    protected void service(HttpServletRequest req,
+                            HttpServletResponse resp) throws IOException {
+                        statements.forEach(inspector::inspect);
+                        resp.getWriter().write("[]");
+                        resp.flushBuffer();
+                    }
+                }));
+        return request;
+    }
+
+    @Test
+    void doFilter_itShouldCountTheStatementsRunByTheRequest() throws Exception {
+        // When a request runs two different statements
+        MockHttpServletRequest request = run(List.of(
+                "select * from task where id=?",
+                "select * from users where id=?"
+        ));
+        // Then the counter for the request has counted both
+        QueryCounter counter = (QueryCounter) request.getAttribute(
+                QueryCounter.REQUEST_ATTRIBUTE);
+        assertThat(counter.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void doFilter_itShouldFailARequestOverTheBudget() {
+        // When a request runs more statements than the budget
+        // Then it fails
+        assertThatThrownBy(() -> run(List.of("a", "b", "c", "d")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("ran 4 SQL statements (budget 3)");
+    }
+
+    @Test
+    void doFilter_itShouldFailARequestWhichRepeatsAStatement() {
+        // When a request runs the same statement twice (N+1 access)
+        // Then it fails
+        assertThatThrownBy(() -> run(List.of(
+                "select * from users where id=?",
+                "select * from users where id=?"
+        )))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("possible N+1");
+    }
+
+    @Test
+    void doFilter_itShouldFailARequestBeforeItsResponseIsWritten() {
+        // When a request runs more statements than the budget
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThatThrownBy(() -> run(List.of("a", "b", "c", "d"), response))
+                .isInstanceOf(IllegalStateException.class);
+        // Then it fails before its response is written
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentLength()).isZero();
+    }
+
+    @Test
+    void doFilter_itShouldNotCountSequenceCalls() throws Exception {
+        // When a request gets a block of IDs from a sequence four times and
+        // runs one other statement
+        MockHttpServletRequest request = run(List.of(
+                "select nextval('task_sequence')",
+                "select nextval('task_sequence')",
+                "select nextval('task_sequence')",
+                "select nextval('task_sequence')",
+                "insert into task (title,id) values (?,?)"
+        ));
+        // Then only the other statement is counted
+        QueryCounter counter = (QueryCounter) request.getAttribute(
+                QueryCounter.REQUEST_ATTRIBUTE);
+        assertThat(counter.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void inspect_itShouldNotCountStatementsOutsideARequest() throws Exception {
+        // Given a request which has finished
+        MockHttpServletRequest request = run(List.of("select 1"));
+        // When a statement is run outside the request
+        inspector.inspect("select 2");
+        // Then it isn't counted
+        QueryCounter counter = (QueryCounter) request.getAttribute(
+                QueryCounter.REQUEST_ATTRIBUTE);
+        assertThat(counter.getTotal()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.todo.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        // 60 requests per minute is one every second, with a burst of 3
+        rateLimiter = new RateLimiter(60, 3, 100, clock::get);
+    }
+
+    @Test
+    void tryAcquire_itShouldAllowABurstAndThenRejectWithTheTimeUntilTheNextToken() {
+        // Given a key which has used its whole burst
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("key")).isZero();
+        }
+        // When tryAcquire() is called again straight away
+        long wait = rateLimiter.tryAcquire("key");
+        // Then it is rejected until the next token is added in a second
+        assertThat(wait).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void tryAcquire_itShouldAllowTheKeyAgainOnceATokenHasBeenAdded() {
+        // Given a key which has used its whole burst
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("key");
+        }
+        // When tryAcquire() is called a second later
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        // Then one request is allowed and the next is rejected
+        assertThat(rateLimiter.tryAcquire("key")).isZero();
+        assertThat(rateLimiter.tryAcquire("key")).isPositive();
+    }
+
+    @Test
+    void tryAcquire_itShouldLimitEachKeySeparately() {
+        // Given a key which has used its whole burst
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("key");
+        }
+        // When tryAcquire() is called with another key
+        long wait = rateLimiter.tryAcquire("other");
+        // Then it is allowed
+        assertThat(wait).isZero();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.todo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadConfigTest {
+    private final VirtualThreadConfig virtualThreadConfig =
+            new VirtualThreadConfig();
+
+    @Test
+    void virtualThreadExecutor_itShouldRunTasksOnVirtualThreads()
+            throws Exception {
+        // Given the JVM supports virtual threads
+        assumeTrue(VirtualThreadConfig.isSupported());
+        // When a task is run on the virtual thread executor
+        ExecutorService executor = virtualThreadConfig.virtualThreadExecutor();
+        boolean isVirtual = executor.submit(() -> (Boolean) Thread.class
+                .getMethod("isVirtual")
+                .invoke(Thread.currentThread())).get();
+        executor.shutdown();
+        // Then it runs on a virtual thread
+        assertThat(isVirtual).isTrue();
+    }
+
+    @Test
+    void virtualThreadExecutor_itShouldFailIfTheJvmDoesNotSupportVirtualThreads() {
+        // Given the JVM doesn't support virtual threads
+        assumeFalse(VirtualThreadConfig.isSupported());
+        // When the virtual thread executor is created
+        // Then an exception is thrown
+        assertThatThrownBy(virtualThreadConfig::virtualThreadExecutor)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.todo.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Its own database so the schema isn't recreated under the other contexts,
+// and the actuator endpoints on their own port like in production
+@SpringBootTest(
+        classes = ReactiveTodoApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive-metrics;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                "management.server.port=0"
+        }
+)
+@ActiveProfiles(ReactiveTodoApplication.PROFILE)
+@AutoConfigureObservability
+class ReactiveMetricsTest {
+    @Autowired
+    private WebTestClient webTestClient;
+    @LocalManagementPort
+    private int managementPort;
+
+    private WebTestClient managementClient() {
+        return webTestClient.mutate()
+                .baseUrl("http://localhost:" + managementPort)
+                .build();
+    }
+
+    @Test
+    void prometheus_itShouldExposeTheRequestMetricsOnTheManagementPort() {
+        // Given a user who registered
+        webTestClient.post().uri("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of(
+                        "name", "test",
+                        "email", "test@gmail.com",
+                        "password", "password"
+                ))
+                .exchange()
+                .expectStatus().isCreated();
+        // When the Prometheus endpoint is scraped on the management port
+        // without a token
+        String metrics = managementClient().get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        // Then it has the endpoint and JWT metrics
+        assertThat(metrics)
+                .contains("http_server_requests_seconds")
+                .contains("jwt_");
+    }
+
+    @Test
+    void prometheus_itShouldNotBeServedOnTheApplicationPort() {
+        // When the metrics endpoints are requested on the application port
+        // Then they aren't served
+        for (String endpoint : new String[] {"prometheus", "metrics"}) {
+            webTestClient.get().uri("/actuator/" + endpoint)
+                    .exchange()
+                    .expectStatus().is4xxClientError();
+        }
+    }
+
+    @Test
+    void health_itShouldNotRequireAToken() {
+        // When the health endpoint is probed on the management port without
+        // a token
+        // Then it responds
+        managementClient().get().uri("/actuator/health")
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.todo.reactive;
+
+import com.example.todo.auth.AuthResponse;
+import com.example.todo.task.TaskDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+        classes = ReactiveTodoApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.r2dbc.url=r2dbc:h2:mem:///reactive;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+)
+@ActiveProfiles(ReactiveTodoApplication.PROFILE)
+class ReactiveTodoApplicationTests {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    private AuthResponse user;
+
+    @BeforeEach
+    void setUp() {
+        user = register(UUID.randomUUID() + "@gmail.com");
+    }
+
+    private AuthResponse register(String email) {
+        return webTestClient.post().uri("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of(
+                        "name", "test",
+                        "email", email,
+                        "password", "password"
+                ))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(AuthResponse.class)
+                .returnResult().getResponseBody();
+    }
+
+    private TaskDTO createTask(AuthResponse owner, String title) {
+        return webTestClient.post().uri("/api/v1/task")
+                .headers(headers -> headers.setBearerAuth(owner.token()))
+                .bodyValue(Map.of(
+                        "title", title,
+                        "dueDate", LocalDate.of(2024, 1, 1).toString()
+                ))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TaskDTO.class)
+                .returnResult().getResponseBody();
+    }
+
+    @Test
+    void webServer_itShouldBeNettyEvenThoughTomcatIsOnTheClasspath() {
+        // Given the reactive application has started
+        // Then it is served by Netty
+        assertThat(context.getWebServer()).isInstanceOf(NettyWebServer.class);
+    }
+
+    @Test
+    void prometheus_itShouldRejectEveryRequestOnTheApplicationPort() {
+        // When the metrics endpoints are requested on the application port
+        // without a token and with a user's token
+        // Then the requests are rejected
+        webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isForbidden();
+        webTestClient.get().uri("/actuator/metrics")
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void health_itShouldNotRequireAToken() {
+        // When the health endpoint is probed without a token
+        // Then it responds
+        webTestClient.get().uri("/actuator/health")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void login_itShouldReturnATokenForTheRegisteredUser() {
+        // When the registered user logs in
+        AuthResponse response = webTestClient.post().uri("/api/v1/auth/login")
+                .bodyValue(Map.of(
+                        "email", user.email(),
+                        "password", "password"
+                ))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class)
+                .returnResult().getResponseBody();
+        // Then they get a token for the same user
+        assertThat(response.id()).isEqualTo(user.id());
+        assertThat(response.token()).isNotBlank();
+    }
+
+    @Test
+    void login_itShouldRejectAnIncorrectPassword() {
+        // When the user logs in with the wrong password
+        // Then the request is rejected
+        webTestClient.post().uri("/api/v1/auth/login")
+                .bodyValue(Map.of(
+                        "email", user.email(),
+                        "password", "wrong"
+                ))
+                .exchange()
+                .expectStatus().isForbidden()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Incorrect password");
+    }
+
+    @Test
+    void register_itShouldRejectAnEmailThatIsAlreadyUsed() {
+        // When the same email registers again
+        // Then the request is rejected
+        webTestClient.post().uri("/api/v1/auth/register")
+                .bodyValue(Map.of(
+                        "name", "test",
+                        "email", user.email(),
+                        "password", "password"
+                ))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message")
+                .isEqualTo("Account with email already exists");
+    }
+
+    @Test
+    void register_itShouldRejectAPayloadWithAMissingField() {
+        // When a user registers without a name
+        // Then the request is rejected with the validation message
+        webTestClient.post().uri("/api/v1/auth/register")
+                .bodyValue(Map.of(
+                        "email", "missing@gmail.com",
+                        "password", "password"
+                ))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Missing name");
+    }
+
+    @Test
+    void getTask_itShouldReturnTheTaskWithItsETag() {
+        // Given a task
+        TaskDTO task = createTask(user, "task");
+        // When it is requested
+        // Then it is returned with the same ETag as the servlet app's
+        webTestClient.get().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG,
+                        "\"task-" + task.Id() + "-0\"")
+                .expectBody(TaskDTO.class).isEqualTo(task);
+    }
+
+    @Test
+    void getTask_itShouldRejectRequestsWithoutAToken() {
+        // When a task is requested without a token
+        // Then the request is rejected
+        webTestClient.get().uri("/api/v1/task/1")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void getTask_itShouldRejectATaskBelongingToAnotherUser() {
+        // Given a task belonging to another user
+        TaskDTO task = createTask(
+                register(UUID.randomUUID() + "@gmail.com"), "task");
+        // When it is requested
+        // Then the request is rejected
+        webTestClient.get().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void getTask_itShouldReturnNotFoundForATaskThatDoesNotExist() {
+        // When a task that doesn't exist is requested
+        // Then the response is a 404
+        webTestClient.get().uri("/api/v1/task/999999")
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getUserTasks_itShouldReturnNotModifiedUntilATaskChanges() {
+        // Given the user's task list and its ETag
+        TaskDTO task = createTask(user, "task");
+        String eTag = webTestClient.get().uri("/api/v1/task/user/" + user.id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(TaskDTO.class).contains(task)
+                .returnResult().getResponseHeaders().getETag();
+        // When it is requested again with the ETag
+        // Then the response is a 304
+        webTestClient.get().uri("/api/v1/task/user/" + user.id())
+                .headers(headers -> {
+                    headers.setBearerAuth(user.token());
+                    headers.setIfNoneMatch(eTag);
+                })
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void updateTask_itShouldUpdateTheTaskAndBumpItsVersion() {
+        // Given a task
+        TaskDTO task = createTask(user, "task");
+        // When it is updated with its current ETag
+        TaskDTO updated = webTestClient.patch()
+                .uri("/api/v1/task/" + task.Id())
+                .headers(headers -> {
+                    headers.setBearerAuth(user.token());
+                    headers.setIfMatch("\"task-" + task.Id() + "-0\"");
+                })
+                .bodyValue(Map.of("title", "updated", "isComplete", true))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TaskDTO.class)
+                .returnResult().getResponseBody();
+        // Then the task is updated and its version bumped
+        assertThat(updated.title()).isEqualTo("updated");
+        assertThat(updated.isComplete()).isTrue();
+        assertThat(updated.version()).isEqualTo(1L);
+    }
+
+    @Test
+    void updateTask_itShouldRejectAStaleIfMatch() {
+        // Given a task which has been updated
+        TaskDTO task = createTask(user, "task");
+        webTestClient.put().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .bodyValue(Map.of("title", "updated"))
+                .exchange()
+                .expectStatus().isOk();
+        // When it is updated with the ETag from before
+        // Then the request is rejected
+        webTestClient.put().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> {
+                    headers.setBearerAuth(user.token());
+                    headers.setIfMatch("\"task-" + task.Id() + "-0\"");
+                })
+                .bodyValue(Map.of("title", "stale"))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void deleteTask_itShouldDeleteTheTask() {
+        // Given a task
+        TaskDTO task = createTask(user, "task");
+        // When it is deleted
+        webTestClient.delete().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isOk();
+        // Then it can't be found
+        webTestClient.get().uri("/api/v1/task/" + task.Id())
+                .headers(headers -> headers.setBearerAuth(user.token()))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.todo.task;
+
+import com.example.todo.config.CacheConfig;
+import com.example.todo.config.QueryCounter;
+import com.example.todo.user.UserCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Locks in the number of SQL statements each task endpoint runs, with the
+ * caches cleared before each request so the counts don't depend on what
+ * earlier requests cached.
+ */
+// Its own database so the schema isn't recreated under the other contexts,
+// and every test registers a user so registration isn't rate limited
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount",
+        "auth.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class TaskControllerQueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserCache userCache;
+
+    private String token;
+    private long userId;
+    private long taskId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        JsonNode auth = json(mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"name": "test", "email": "%s@gmail.com",
+                         "password": "password"}"""
+                        .formatted(UUID.randomUUID()))).andReturn());
+        token = auth.get("token").asText();
+        userId = auth.get("id").asLong();
+        for (int i = 0; i < 5; i++) {
+            taskId = json(mockMvc.perform(authorised(post("/api/v1/task"))
+                    .content("""
+                            {"title": "task %d", "dueDate": "2024-01-0%d"}"""
+                            .formatted(i, i + 1))).andReturn())
+                    .get("Id").asLong();
+        }
+        clearCaches();
+    }
+
+    private void clearCaches() {
+        entityManagerFactory.getCache().evictAll();
+        cacheManager.getCacheNames()
+                .forEach(name -> cacheManager.getCache(name).clear());
+        userCache.evictAll();
+    }
+
+    private MockHttpServletRequestBuilder authorised(
+            MockHttpServletRequestBuilder request) {
+        return request
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON);
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private int statements(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        assertThat(result.getResponse().getStatus()).isLessThan(400);
+        return ((QueryCounter) result.getRequest()
+                .getAttribute(QueryCounter.REQUEST_ATTRIBUTE)).getTotal();
+    }
+
+    @Test
+    void createTask_itShouldInsertTheTaskAndBumpTheListVersion()
+            throws Exception {
+        // When a task is created
+        int count = statements(authorised(post("/api/v1/task"))
+                .content("""
+                        {"title": "new", "dueDate": "2024-02-01"}"""));
+        // Then only the insert and the list version update are run (the
+        // user isn't loaded)
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void applyBatch_itShouldLoadAllTheUpdatedTasksInOneQuery()
+            throws Exception {
+        // When a batch with two creates and an update is applied
+        int count = statements(authorised(post("/api/v1/task/batch"))
+                .content("""
+                        {"create": [
+                            {"title": "a", "dueDate": "2024-02-01"},
+                            {"title": "b", "dueDate": "2024-02-01"}
+                         ],
+                         "update": [{"id": %d, "title": "updated"}]}"""
+                        .formatted(taskId)));
+        // Then the tasks are loaded once and the changes written in batches
+        assertThat(count).isEqualTo(4);
+    }
+
+    @Test
+    void applyBatch_itShouldStayWithinTheBudgetForALargeBatch()
+            throws Exception {
+        // When a batch creates enough tasks to use up several blocks of IDs
+        // from the sequence
+        String creates = IntStream.range(0, 120)
+                .mapToObj(i -> """
+                        {"title": "task %d", "dueDate": "2024-02-01"}"""
+                        .formatted(i))
+                .collect(Collectors.joining(","));
+        int count = statements(authorised(post("/api/v1/task/batch"))
+                .content("{\"create\": [" + creates + "]}"));
+        // Then only the batched insert and the list version update are
+        // counted, not the sequence calls
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void getTask_itShouldRunOneQuery() throws Exception {
+        // When a task is requested
+        int count = statements(authorised(get("/api/v1/task/" + taskId)));
+        // Then only the task is read
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void getTask_itShouldOnlyReadTheVersionForAConditionalRequest()
+            throws Exception {
+        // When a task is requested with its current ETag
+        int count = statements(authorised(get("/api/v1/task/" + taskId))
+                .header(HttpHeaders.IF_NONE_MATCH,
+                        "\"task-" + taskId + "-0\""));
+        // Then only the version is read
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void getUserTasks_itShouldReadTheListVersionAndTheTasks()
+            throws Exception {
+        // When the user's tasks are requested
+        int count = statements(authorised(
+                get("/api/v1/task/user/" + userId)));
+        // Then the list version and the tasks are read
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void getUserTasks_itShouldOnlyReadTheListVersionOnceTheListIsCached()
+            throws Exception {
+        // Given the user's tasks have been requested
+        statements(authorised(get("/api/v1/task/user/" + userId)));
+        // When they are requested again
+        int count = statements(authorised(
+                get("/api/v1/task/user/" + userId)));
+        // Then only the list version is read
+        assertThat(count).isEqualTo(1);
+    }
+
+    @Test
+    void getUserTasks_itShouldReadTheTasksAgainIfTheyWereCachedBeforeAChange()
+            throws Exception {
+        // Given the list was read before the last task was created and
+        // cached after the change evicted it
+        cacheManager.getCache(CacheConfig.USER_TASKS_CACHE)
+                .put(userId, new TaskList(4L, List.of()));
+        // When the user's tasks are requested
+        MvcResult result = mockMvc.perform(authorised(
+                get("/api/v1/task/user/" + userId))).andReturn();
+        // Then the tasks are read again and sent with the current ETag
+        assertThat(json(result)).hasSize(5);
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG))
+                .isEqualTo("\"tasks-" + userId + "-5\"");
+        assertThat(cacheManager.getCache(CacheConfig.USER_TASKS_CACHE)
+                .get(userId, TaskList.class).version()).isEqualTo(5L);
+    }
+
+    @Test
+    void getUserTasks_itShouldReadTheListVersionAndTheFilteredTasks()
+            throws Exception {
+        // When the user's incomplete tasks due in a range are requested
+        // newest first, as a whole list and as a page
+        int listCount = statements(authorised(get("/api/v1/task/user/"
+                + userId + "?status=incomplete&dueAfter=2024-01-01"
+                + "&dueBefore=2024-01-05&sort=dueDate,desc")));
+        int pageCount = statements(authorised(get("/api/v1/task/user/"
+                + userId + "?limit=2&overdue=true")));
+        // Then each reads the list version and runs one filtered query
+        assertThat(listCount).isEqualTo(2);
+        assertThat(pageCount).isEqualTo(2);
+    }
+
+    @Test
+    void getUserTaskPage_itShouldReadTheListVersionAndThePage()
+            throws Exception {
+        // When a page of the user's tasks is requested
+        int count = statements(authorised(
+                get("/api/v1/task/user/" + userId + "?limit=2")));
+        // Then the list version and the page are read
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void searchTasks_itShouldOnlyReadTheTasksForTheFirstSearch()
+            throws Exception {
+        // When the user's tasks are searched twice
+        int firstCount = statements(authorised(
+                get("/api/v1/task/search?q=task")));
+        int secondCount = statements(authorised(
+                get("/api/v1/task/search?q=tas")));
+        // Then only the first reads the user's tasks to build their index
+        assertThat(firstCount).isEqualTo(1);
+        assertThat(secondCount).isEqualTo(0);
+    }
+
+    @Test
+    void suggestTitles_itShouldOnlyReadTheTitlesForTheFirstSuggestion()
+            throws Exception {
+        // When titles are suggested twice
+        int firstCount = statements(authorised(
+                get("/api/v1/task/suggest?prefix=t")));
+        int secondCount = statements(authorised(
+                get("/api/v1/task/suggest?prefix=ta")));
+        // Then only the first reads the user's titles
+        assertThat(firstCount).isEqualTo(1);
+        assertThat(secondCount).isEqualTo(0);
+    }
+
+    @Test
+    void getTaskStats_itShouldOnlyCountTheTasksForTheFirstRequest()
+            throws Exception {
+        // When the stats are requested twice
+        int firstCount = statements(authorised(get("/api/v1/task/stats")));
+        int secondCount = statements(authorised(get("/api/v1/task/stats")));
+        // Then only the first counts the user's tasks
+        assertThat(firstCount).isEqualTo(1);
+        assertThat(secondCount).isEqualTo(0);
+    }
+
+    @Test
+    void updateTask_itShouldLoadUpdateAndBumpTheListVersion()
+            throws Exception {
+        // When a task is updated with PUT and then PATCH
+        int putCount = statements(authorised(put("/api/v1/task/" + taskId))
+                .content("""
+                        {"title": "put"}"""));
+        clearCaches();
+        int patchCount = statements(authorised(
+                patch("/api/v1/task/" + taskId))
+                .content("""
+                        {"title": "patch"}"""));
+        // Then each loads the task, updates it and bumps the list version
+        assertThat(putCount).isEqualTo(3);
+        assertThat(patchCount).isEqualTo(3);
+    }
+
+    @Test
+    void deleteTask_itShouldLoadDeleteAndBumpTheListVersion()
+            throws Exception {
+        // When a task is deleted
+        int count = statements(authorised(delete("/api/v1/task/" + taskId)));
+        // Then the task is loaded, deleted and the list version bumped
+        assertThat(count).isEqualTo(3);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.todo.task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskCountersTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    private TaskCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new TaskCounters(TODAY);
+    }
+
+    private static TaskDTO task(LocalDate dueDate, boolean isComplete) {
+        return new TaskDTO(1L, 1L, "task", "", dueDate, isComplete, 0L);
+    }
+
+    @Test
+    void stats_itShouldCountTheTasksByStatusAndDueDate() {
+        // Given complete tasks and incomplete tasks due before, on and
+        // after today
+        counters.add(true, TODAY.minusDays(1), 3);
+        counters.add(false, TODAY.minusDays(2), 2);
+        counters.add(false, TODAY, 1);
+        counters.add(false, TODAY.plusDays(1), 4);
+        // When the stats are read
+        // Then every task is counted once in each count it belongs to
+        assertThat(counters.stats(TODAY))
+                .isEqualTo(new TaskStats(10, 3, 7, 2, 1));
+    }
+
+    @Test
+    void apply_itShouldMoveAChangedTaskBetweenTheCounts() {
+        // Given an incomplete task due today
+        TaskDTO task = task(TODAY, false);
+        counters.apply(null, task, TODAY);
+        // When it is postponed, then completed, then deleted
+        TaskDTO postponed = task(TODAY.plusDays(1), false);
+        counters.apply(task, postponed, TODAY);
+        TaskStats afterPostponing = counters.stats(TODAY);
+        TaskDTO completed = task(TODAY.plusDays(1), true);
+        counters.apply(postponed, completed, TODAY);
+        TaskStats afterCompleting = counters.stats(TODAY);
+        counters.apply(completed, null, TODAY);
+        // Then the counts follow each change
+        assertThat(afterPostponing).isEqualTo(new TaskStats(1, 0, 1, 0, 0));
+        assertThat(afterCompleting).isEqualTo(new TaskStats(1, 1, 0, 0, 0));
+        assertThat(counters.stats(TODAY))
+                .isEqualTo(new TaskStats(0, 0, 0, 0, 0));
+        assertThat(counters.changes()).isEqualTo(4);
+    }
+
+    @Test
+    void stats_itShouldRollTheOverdueAndDueTodayCountsOverAtMidnight() {
+        // Given incomplete tasks due today, tomorrow and in 3 days
+        counters.add(false, TODAY, 1);
+        counters.add(false, TODAY.plusDays(1), 2);
+        counters.add(false, TODAY.plusDays(3), 4);
+        // When the stats are read on the next 2 days
+        TaskStats tomorrow = counters.stats(TODAY.plusDays(1));
+        TaskStats dayAfter = counters.stats(TODAY.plusDays(2));
+        // Then the tasks due on the days that have passed are overdue
+        assertThat(tomorrow).isEqualTo(new TaskStats(7, 0, 7, 1, 2));
+        assertThat(dayAfter).isEqualTo(new TaskStats(7, 0, 7, 3, 0));
+    }
+}
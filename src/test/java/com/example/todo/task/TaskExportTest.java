@@ -0,0 +1,52 @@
+package com.example.todo.task;
+
+import com.example.todo.auth.AuthResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A real server, so the export is completed with an async dispatch through
+// the security filters. Its own database so the schema isn't recreated under
+// the other contexts.
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:export"
+)
+class TaskExportTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void exportUserTasks_itShouldStreamTheTasksOfTheAuthenticatedUser() {
+        // Given a user with a task
+        AuthResponse user = restTemplate.postForObject(
+                "/api/v1/auth/register",
+                Map.of("name", "test", "email", "test@gmail.com",
+                        "password", "password"),
+                AuthResponse.class);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(user.token());
+        restTemplate.exchange("/api/v1/task", HttpMethod.POST,
+                new HttpEntity<>(Map.of("title", "task",
+                        "dueDate", "2024-01-01"), headers),
+                String.class);
+        // When their tasks are exported
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/v1/task/user/" + user.id() + "/export",
+                HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        // Then the whole stream is sent (the async dispatch which completes
+        // it is authenticated as the same user)
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("\"title\":\"task\"");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.todo.task;
+
+import com.example.todo.exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskFilterTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void of_itShouldReturnNoFilterIfThereAreNoParameters() {
+        // When a filter is parsed without any parameters
+        TaskFilter filter = TaskFilter.of(null, null, null, null, null, TODAY);
+        // Then nothing is filtered and the order is ascending
+        assertThat(filter).isEqualTo(TaskFilter.NONE);
+    }
+
+    @Test
+    void of_itShouldParseTheStatusDueDatesAndSort() {
+        // When a filter is parsed with every parameter except overdue
+        TaskFilter filter = TaskFilter.of("Complete", "2024-01-01",
+                "2024-02-01", "false", "dueDate,desc", TODAY);
+        // Then each parameter is set
+        assertThat(filter).isEqualTo(new TaskFilter(true,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), false,
+                true));
+    }
+
+    @Test
+    void of_itShouldOnlyIncludeIncompleteTasksDueBeforeTodayForOverdue() {
+        // When an overdue filter is parsed with and without an earlier due
+        // date
+        TaskFilter overdue = TaskFilter.of(null, null, null, "true", null,
+                TODAY);
+        TaskFilter overdueBefore = TaskFilter.of(null, null, "2024-02-01",
+                "true", null, TODAY);
+        // Then the tasks must be incomplete and due before the earlier of
+        // today and the due date
+        assertThat(overdue).isEqualTo(new TaskFilter(false, null, TODAY,
+                true, false));
+        assertThat(overdueBefore.dueBefore())
+                .isEqualTo(LocalDate.of(2024, 2, 1));
+    }
+
+    @Test
+    void of_itShouldRejectInvalidParameters() {
+        // When filters are parsed with invalid parameters
+        // Then each is rejected
+        assertThatThrownBy(() -> TaskFilter.of("done", null, null, null,
+                null, TODAY))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Status must be complete, incomplete or all");
+        assertThatThrownBy(() -> TaskFilter.of(null, "01/02/2024", null,
+                null, null, TODAY))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("dueAfter must be a date (yyyy-mm-dd)");
+        assertThatThrownBy(() -> TaskFilter.of("complete", null, null,
+                "true", null, TODAY))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Overdue tasks can't be complete");
+        assertThatThrownBy(() -> TaskFilter.of(null, null, null, null,
+                "title", TODAY))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Sort must be dueDate,asc or dueDate,desc");
+    }
+}
@@ -6,11 +6,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @DataJpaTest
 class TaskRepositoryTest {
@@ -30,7 +35,7 @@ class TaskRepositoryTest {
     void findAllByUserId_itShouldReturnAnEmptyListIfNoTasksForAUserExist() {
         // Given there are no tasks assigned to the user with ID 1
         // When userTasks() is called
-        List<Task> userTasks = taskRepository.findAllByUserId(1L);
+        List<TaskDTO> userTasks = taskRepository.findAllByUserId(1L);
         // Then an empty list is returned
         assertThat(userTasks).isEmpty();
     }
@@ -44,7 +49,7 @@ class TaskRepositoryTest {
         task.setUser(newUser);
         taskRepository.save(task);
         // When userTasks() is called
-        List<Task> userTasks = taskRepository.findAllByUserId(newUser.getId());
+        List<TaskDTO> userTasks = taskRepository.findAllByUserId(newUser.getId());
         // Then a list with 1 task is returned
         assertThat(userTasks.size()).isEqualTo(1);
     }
@@ -61,7 +66,7 @@ class TaskRepositoryTest {
             taskRepository.save(task);
         }
         // When userTasks() is called
-        List<Task> userTasks = taskRepository.findAllByUserId(newUser.getId());
+        List<TaskDTO> userTasks = taskRepository.findAllByUserId(newUser.getId());
         // Then a list with 2 tasks is returned
         assertThat(userTasks.size()).isEqualTo(2);
     }
@@ -78,8 +83,174 @@ class TaskRepositoryTest {
             taskRepository.save(task);
         }
         // When userTasks() is called
-        List<Task> userTasks = taskRepository.findAllByUserId(newUser.getId());
+        List<TaskDTO> userTasks = taskRepository.findAllByUserId(newUser.getId());
         // Then a list with 10 tasks is returned
         assertThat(userTasks.size()).isEqualTo(10);
     }
-}
\ No newline at end of file
+
+    @Test
+    void findPageByUserId_itShouldReturnTheTasksWithTheEarliestDueDatesFirst() {
+        // Given a user with 3 tasks due on different days
+        User user = new User("test", "test@gmail.com", "password");
+        User newUser = userRepository.save(user);
+        LocalDate today = LocalDate.now();
+        for (int i = 2; i >= 0; i--) {
+            Task task = new Task("task" + i, "", today.plusDays(i), false);
+            task.setUser(newUser);
+            taskRepository.save(task);
+        }
+        // When findPageByUserId() is called with a page size of 2
+        List<TaskDTO> page = taskRepository.findPageByUserId(
+                newUser.getId(),
+                PageRequest.of(0, 2)
+        );
+        // Then the 2 tasks due first are returned in order
+        assertThat(page).extracting(TaskDTO::dueDate)
+                .containsExactly(today, today.plusDays(1));
+    }
+
+    @Test
+    void findPageByUserIdAfter_itShouldReturnTheTasksAfterTheGivenDueDateAndId() {
+        // Given a user with 3 tasks due on the same day
+        User user = new User("test", "test@gmail.com", "password");
+        User newUser = userRepository.save(user);
+        LocalDate today = LocalDate.now();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("task" + i, "", today, false);
+            task.setUser(newUser);
+            tasks.add(taskRepository.save(task));
+        }
+        // When findPageByUserIdAfter() is called with the first task
+        Task first = tasks.get(0);
+        List<TaskDTO> page = taskRepository.findPageByUserIdAfter(
+                newUser.getId(),
+                first.getDueDate(),
+                first.getId(),
+                PageRequest.of(0, 10)
+        );
+        // Then only the tasks after the first task are returned
+        assertThat(page).extracting(TaskDTO::Id).containsExactly(
+                tasks.get(1).getId(),
+                tasks.get(2).getId()
+        );
+    }
+
+    @Test
+    void findAllByUserId_itShouldOrderTheTasksByDueDateAndId() {
+        // Given a user with tasks saved out of due date order, two of them
+        // due on the same day
+        User user = new User("test", "test@gmail.com", "password");
+        User newUser = userRepository.save(user);
+        LocalDate today = LocalDate.now();
+        List<Task> tasks = new ArrayList<>();
+        for (int days : new int[] {2, 0, 1, 0}) {
+            Task task = new Task("task", "", today.plusDays(days), false);
+            task.setUser(newUser);
+            tasks.add(taskRepository.save(task));
+        }
+        // When all of the user's tasks are requested
+        List<TaskDTO> userTasks = taskRepository.findAllByUserId(
+                newUser.getId());
+        // Then they are ordered by due date, then by ID
+        assertThat(userTasks).extracting(TaskDTO::Id).containsExactly(
+                tasks.get(1).getId(),
+                tasks.get(3).getId(),
+                tasks.get(2).getId(),
+                tasks.get(0).getId()
+        );
+    }
+
+    @Test
+    void findAllByUserId_itShouldOnlyReturnTheTasksMatchingTheFilter() {
+        // Given a user with complete and incomplete tasks due over 5 days
+        User user = new User("test", "test@gmail.com", "password");
+        User newUser = userRepository.save(user);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            for (boolean isComplete : new boolean[] {true, false}) {
+                Task task = new Task("task" + i, "", today.plusDays(i),
+                        isComplete);
+                task.setUser(newUser);
+                taskRepository.save(task);
+            }
+        }
+        // When the incomplete tasks due between today and 4 days from now
+        // are requested
+        TaskFilter filter = new TaskFilter(false, today, today.plusDays(4),
+                false, false);
+        List<TaskDTO> tasks = taskRepository.findAllByUserId(
+                newUser.getId(), filter, null, 0);
+        // Then only the incomplete tasks due in between are returned, the
+        // earliest first
+        assertThat(tasks).extracting(TaskDTO::isComplete)
+                .containsOnly(false);
+        assertThat(tasks).extracting(TaskDTO::dueDate).containsExactly(
+                today.plusDays(1), today.plusDays(2), today.plusDays(3));
+    }
+
+    @Test
+    void findAllByUserId_itShouldReturnThePageAfterTheCursorInDescendingOrder() {
+        // Given a user with 2 tasks due on each of 2 days
+        User user = new User("test", "test@gmail.com", "password");
+        User newUser = userRepository.save(user);
+        LocalDate today = LocalDate.now();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task("task" + i, "", today.plusDays(i / 2), false);
+            task.setUser(newUser);
+            tasks.add(taskRepository.save(task));
+        }
+        // When a page of 2 tasks is requested in descending order, after
+        // the task due last with the highest ID
+        TaskFilter filter = new TaskFilter(null, null, null, false, true);
+        List<TaskDTO> page = taskRepository.findAllByUserId(newUser.getId(),
+                filter, TaskCursor.from(tasks.get(3).toDTO()), 2);
+        // Then the next 2 tasks by latest due date and highest ID are
+        // returned
+        assertThat(page).extracting(TaskDTO::Id).containsExactly(
+                tasks.get(2).getId(),
+                tasks.get(1).getId()
+        );
+    }
+
+    @Test
+    void save_itShouldIncrementTheVersionWhenATaskIsUpdated() {
+        // Given a saved task
+        User newUser = userRepository.save(
+                new User("test", "test@gmail.com", "password")
+        );
+        Task task = new Task("task", "description", LocalDate.now(), false);
+        task.setUser(newUser);
+        Task savedTask = taskRepository.saveAndFlush(task);
+        Long version = savedTask.getVersion();
+        // When the task is updated
+        savedTask.setTitle("new title");
+        taskRepository.saveAndFlush(savedTask);
+        // Then the version is incremented
+        assertThat(savedTask.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void save_itShouldThrowIfTheTaskWasUpdatedAfterItWasRead() {
+        // Given a copy of a task that was read before the task was updated
+        User newUser = userRepository.save(
+                new User("test", "test@gmail.com", "password")
+        );
+        Task task = new Task("task", "description", LocalDate.now(), false);
+        task.setUser(newUser);
+        Task savedTask = taskRepository.saveAndFlush(task);
+        Task staleTask = new Task("task", "description", LocalDate.now(),
+                false);
+        staleTask.setId(savedTask.getId());
+        staleTask.setUser(newUser);
+        staleTask.setVersion(savedTask.getVersion());
+        savedTask.setTitle("new title");
+        taskRepository.saveAndFlush(savedTask);
+        // When the stale copy is saved
+        staleTask.setComplete(true);
+        // Then an optimistic locking exception is thrown
+        assertThatThrownBy(() -> taskRepository.saveAndFlush(staleTask))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+}
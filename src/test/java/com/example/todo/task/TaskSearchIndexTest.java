@@ -0,0 +1,168 @@
+package com.example.todo.task;
+
+import com.example.todo.config.CacheConfig;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TaskSearchIndexTest {
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // A new user for each test, so tasks from other tests in the same
+        // context are never in their index
+        user = createUser();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.USER_TASKS_CACHE).clear();
+    }
+
+    private User createUser() {
+        User user = userRepository.save(new User("test",
+                UUID.randomUUID() + "@gmail.com", "password"));
+        taskService.createTaskListVersion(user.getId());
+        return user;
+    }
+
+    private Task createTask(User owner, String title, String description) {
+        return taskService.createTask(
+                new NewTaskPayload(title, description, LocalDate.now()),
+                owner
+        );
+    }
+
+    @Test
+    void search_itShouldFindTasksByAWordOrTheStartOfAWord() {
+        // Given two tasks
+        Task milk = createTask(user, "Buy milk", "From the shop");
+        createTask(user, "Walk the dog", "");
+        // When the tasks are searched for a whole word and the start of one
+        // Then only the matching task is found, ignoring case
+        assertThat(taskSearchIndex.search(user.getId(), "MILK", 10))
+                .containsExactly(milk.toDTO());
+        assertThat(taskSearchIndex.search(user.getId(), "sho", 10))
+                .containsExactly(milk.toDTO());
+    }
+
+    @Test
+    void search_itShouldOnlyFindTasksThatMatchEveryWord() {
+        // Given two tasks which both have the word "buy"
+        Task milk = createTask(user, "Buy milk", "");
+        createTask(user, "Buy bread", "");
+        // When the tasks are searched for "buy milk"
+        // Then only the task with both words is found
+        assertThat(taskSearchIndex.search(user.getId(), "buy milk", 10))
+                .containsExactly(milk.toDTO());
+    }
+
+    @Test
+    void search_itShouldRankTitlesAndWholeWordsFirst() {
+        // Given tasks with the search term in the description, as the start
+        // of a word in the title and as a word in the title
+        Task inDescription = createTask(user, "Email", "Send the report");
+        Task prefixInTitle = createTask(user, "Reporting", "");
+        Task wordInTitle = createTask(user, "Report", "");
+        // When the tasks are searched for "report"
+        // Then a whole word in the title ranks first and a word in the
+        // description last
+        assertThat(taskSearchIndex.search(user.getId(), "report", 10))
+                .containsExactly(wordInTitle.toDTO(), prefixInTitle.toDTO(),
+                        inDescription.toDTO());
+        // And the results are limited
+        assertThat(taskSearchIndex.search(user.getId(), "report", 1))
+                .containsExactly(wordInTitle.toDTO());
+    }
+
+    @Test
+    void search_itShouldFindTheTaskAsItIsAfterItIsUpdatedAndNotAfterItIsDeleted() {
+        // Given a task in the user's index
+        Task task = createTask(user, "Buy milk", "");
+        assertThat(taskSearchIndex.search(user.getId(), "milk", 10))
+                .containsExactly(task.toDTO());
+        // When its title is updated (loaded in the same transaction, as the
+        // request's session does)
+        Task updatedTask = new TransactionTemplate(transactionManager)
+                .execute(status -> taskService.updateTask(
+                        taskService.getUserTask(task.getId(), user.getId())
+                                .orElseThrow(),
+                        new UpdateTaskPayload("Buy bread", null, null, null)
+                ));
+        // Then it is found by the new title, with its new version
+        assertThat(taskSearchIndex.search(user.getId(), "milk", 10)).isEmpty();
+        assertThat(taskSearchIndex.search(user.getId(), "bread", 10))
+                .containsExactly(updatedTask.toDTO());
+        assertThat(updatedTask.getVersion()).isEqualTo(1L);
+        // And once it is deleted it isn't found
+        taskService.deleteUserTask(task.getId(), user.getId());
+        assertThat(taskSearchIndex.search(user.getId(), "bread", 10))
+                .isEmpty();
+    }
+
+    @Test
+    void search_itShouldNotFindAnotherUsersTasks() {
+        // Given a task that belongs to another user
+        createTask(createUser(), "Buy milk", "");
+        // When the user searches for it
+        // Then nothing is found
+        assertThat(taskSearchIndex.search(user.getId(), "milk", 10))
+                .isEmpty();
+    }
+
+    @Test
+    void search_itShouldNotFindTasksFromARolledBackTransaction() {
+        // Given a task is created in a transaction that is rolled back
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    createTask(user, "Buy milk", "");
+                    status.setRollbackOnly();
+                });
+        // When the tasks are searched
+        // Then the task isn't found
+        assertThat(taskSearchIndex.search(user.getId(), "milk", 10))
+                .isEmpty();
+    }
+
+    @Test
+    void search_itShouldBuildTheIndexFromTheDatabaseOnTheFirstSearch() {
+        // Given a task saved without the TaskService, so no change is
+        // published for it
+        Task task = new Task("Buy milk", "", LocalDate.now(), false);
+        task.setUser(user);
+        taskRepository.save(task);
+        // When the user searches for the first time
+        // Then the task is found
+        assertThat(taskSearchIndex.search(user.getId(), "milk", 10))
+                .containsExactly(task.toDTO());
+    }
+}
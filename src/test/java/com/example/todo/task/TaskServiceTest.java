@@ -1,39 +1,60 @@
 package com.example.todo.task;
 
+import com.example.todo.config.CacheConfig;
 import com.example.todo.user.User;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.time.Month;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
+    @Mock
+    private TaskListVersionRepository taskListVersionRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Captor
+    private ArgumentCaptor<Iterable<Task>> tasksCaptor;
     private TaskService taskService;
 
     @BeforeEach
     void setUp() {
-        taskService = new TaskService(taskRepository);
+        taskService = new TaskService(taskRepository,
+                taskListVersionRepository, eventPublisher,
+                new ConcurrentMapCacheManager(CacheConfig.USER_TASKS_CACHE));
+        // Every user has a task list version from when they registered
+        lenient().when(taskListVersionRepository.incrementVersion(any()))
+                .thenReturn(1);
     }
 
     @AfterEach
     void tearDown() {
-        reset(taskRepository);
+        reset(taskRepository, taskListVersionRepository, eventPublisher);
     }
 
     @Test
@@ -112,43 +133,55 @@ class TaskServiceTest {
     }
 
     @Test
-    void getTaskById_itShouldCallTheRepositoryFindByIdMethod() {
-        // When getTaskById() is called
-        Long id = 1L;
-        taskService.getTaskById(id);
-        // Then TaskRepository's findById() method is called
-        verify(taskRepository).findById(id);
+    void createTask_itShouldFailIfTheUserHasNoTaskListVersion() {
+        // Given a user whose task list has no version
+        User user = new User();
+        user.setId(1L);
+        given(taskListVersionRepository.incrementVersion(1L)).willReturn(0);
+        NewTaskPayload payload = new NewTaskPayload(
+                "title",
+                "description",
+                LocalDate.now()
+        );
+        // When createTask() is called
+        // Then it fails instead of inserting the version, which could race
+        // with another change
+        assertThatThrownBy(() -> taskService.createTask(payload, user))
+                .isInstanceOf(IllegalStateException.class);
+        verify(taskListVersionRepository, never()).save(any());
     }
 
     @Test
-    void getTaskById_itShouldCallTheRepositoryFindByIdMethodWithTheIdGiven() {
-        // When getTaskById() is called with an ID
-        Long id = 1L;
-        taskService.getTaskById(id);
-        // Then TaskRepository's findById() method is called with the same ID
-        ArgumentCaptor<Long> argumentCaptor = ArgumentCaptor.forClass(Long.class);
-        verify(taskRepository).findById(argumentCaptor.capture());
-        Long capturedId = argumentCaptor.getValue();
-        assertThat(capturedId).isEqualTo(id);
+    void createTaskListVersion_itShouldCreateTheVersionOfANewUsersTaskList() {
+        // When createTaskListVersion() is called for a new user
+        taskService.createTaskListVersion(1L);
+        // Then the user's task list version is created
+        verify(taskListVersionRepository).createVersion(1L);
     }
 
     @Test
-    void getTaskById_itShouldReturnTheResultFromTheFindByIdMethodFromTheRepository() {
-        // Given TaskRepository's findById() method returns this task
-        Long id = 1L;
-        Task task = new Task("title", "description", LocalDate.now(), false);
-        given(taskRepository.findById(id)).willReturn(Optional.of(task));
-        // When getTaskById() is called with an ID
-        Optional<Task> returnedTask = taskService.getTaskById(id);
-        // Then the result of TaskRepository's findById is returned
-        assertThat(returnedTask).isEqualTo(Optional.of(task));
+    void createTask_itShouldIncrementTheTaskListVersionIfItExists() {
+        // Given a user whose task list already has a version
+        User user = new User();
+        user.setId(1L);
+        given(taskListVersionRepository.incrementVersion(1L)).willReturn(1);
+        NewTaskPayload payload = new NewTaskPayload(
+                "title",
+                "description",
+                LocalDate.now()
+        );
+        // When createTask() is called
+        taskService.createTask(payload, user);
+        // Then the version is incremented without saving a new one
+        verify(taskListVersionRepository).incrementVersion(1L);
+        verify(taskListVersionRepository, never()).save(any());
     }
 
     @Test
     void getUserTasks_itShouldCallTheRepositoryFindAllByUserIdMethod() {
         // When getUserTasks() is called
         Long id = 1L;
-        taskService.getUserTasks(id);
+        taskService.getUserTasks(id, 0L);
         // Then TaskRepository's findAllByUserId() method is called
         verify(taskRepository).findAllByUserId(id);
     }
@@ -157,7 +190,7 @@ class TaskServiceTest {
     void getUserTasks_itShouldCallTheRepositoryFindAllByUserIdMethodWithTheIdGiven() {
         // When getUserTasks() is called
         Long id = 1L;
-        taskService.getUserTasks(id);
+        taskService.getUserTasks(id, 0L);
         // Then TaskRepository's findAllByUserId() method is called with the
         // same ID
         ArgumentCaptor<Long> argumentCaptor = ArgumentCaptor.forClass(Long.class);
@@ -170,16 +203,114 @@ class TaskServiceTest {
     void getUserTasks_itShouldReturnTheResultFromTheFindAllByUserIdMethodFromTheRepository() {
         // Given TaskRepository's findAllByUserId() method returns this list
         Long id = 1L;
-        List<Task> tasks = List.of(
-                new Task("task1", "description", LocalDate.now(), false),
-                new Task("task2", "description", LocalDate.now(), false)
+        List<TaskDTO> tasks = List.of(
+                new TaskDTO(1L, id, "task1", "description", LocalDate.now(),
+                        false, 0L),
+                new TaskDTO(2L, id, "task2", "description", LocalDate.now(),
+                        false, 0L)
         );
         given(taskRepository.findAllByUserId(id)).willReturn(tasks);
         // When getUserTasks() is called
-        List<Task> returnedTasks = taskService.getUserTasks(id);
+        TaskList returnedTasks = taskService.getUserTasks(id, 3L);
         // Then the result of TaskRepository's findAllByUserId() method is
-        // returned
-        assertThat(returnedTasks).isEqualTo(tasks);
+        // returned with the version it was read at
+        assertThat(returnedTasks).isEqualTo(new TaskList(3L, tasks));
+    }
+
+    @Test
+    void getUserTasks_itShouldReturnTheCachedListAtTheSameVersion() {
+        // Given the user's tasks have been read at version 3
+        Long id = 1L;
+        TaskList cached = taskService.getUserTasks(id, 3L);
+        // When they are requested again at version 3
+        TaskList returnedTasks = taskService.getUserTasks(id, 3L);
+        // Then the cached list is returned without reading the tasks again
+        assertThat(returnedTasks).isSameAs(cached);
+        verify(taskRepository, times(1)).findAllByUserId(id);
+    }
+
+    @Test
+    void getUserTasks_itShouldReadTheTasksAgainIfTheCachedListIsOlder() {
+        // Given the user's tasks were read and cached at version 3, after
+        // a change to version 4 evicted the list
+        Long id = 1L;
+        taskService.getUserTasks(id, 3L);
+        List<TaskDTO> tasks = List.of(
+                new TaskDTO(1L, id, "task1", "description", LocalDate.now(),
+                        false, 0L)
+        );
+        given(taskRepository.findAllByUserId(id)).willReturn(tasks);
+        // When they are requested at version 4
+        TaskList returnedTasks = taskService.getUserTasks(id, 4L);
+        // Then the tasks are read again and cached with the new version
+        assertThat(returnedTasks).isEqualTo(new TaskList(4L, tasks));
+        assertThat(taskService.getUserTasks(id, 4L)).isSameAs(returnedTasks);
+    }
+
+    @Test
+    void getTaskListVersion_itShouldReturnZeroIfTheUserHasNeverChangedATask() {
+        // Given the user's task list has no version
+        given(taskListVersionRepository.findVersionByUserId(1L))
+                .willReturn(Optional.empty());
+        // When getTaskListVersion() is called
+        long version = taskService.getTaskListVersion(1L);
+        // Then the version is 0
+        assertThat(version).isZero();
+    }
+
+    @Test
+    void getUserTaskPage_itShouldReturnANextCursorIfThereAreMoreTasks() {
+        // Given the repository returns one more task than the limit
+        Long userId = 1L;
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(new TaskDTO((long) i, userId, "task" + i, "",
+                    LocalDate.of(2023, 8, 7), false, 0L));
+        }
+        given(taskRepository.findPageByUserId(userId, PageRequest.of(0, 3)))
+                .willReturn(tasks);
+        // When getUserTaskPage() is called for the first page with a limit of 2
+        TaskPage page = taskService.getUserTaskPage(userId, null, 2);
+        // Then the page has 2 tasks and a cursor pointing at the last one
+        assertThat(page.tasks()).hasSize(2);
+        assertThat(TaskCursor.decode(page.nextCursor()))
+                .isEqualTo(new TaskCursor(LocalDate.of(2023, 8, 7), 1L));
+    }
+
+    @Test
+    void getUserTaskPage_itShouldNotReturnANextCursorOnTheLastPage() {
+        // Given the repository returns fewer tasks than the limit after the
+        // cursor
+        Long userId = 1L;
+        TaskDTO task = new TaskDTO(5L, userId, "task", "",
+                LocalDate.of(2023, 8, 8), false, 0L);
+        TaskCursor cursor = new TaskCursor(LocalDate.of(2023, 8, 7), 4L);
+        given(taskRepository.findPageByUserIdAfter(userId, cursor.dueDate(),
+                cursor.id(), PageRequest.of(0, 3))).willReturn(List.of(task));
+        // When getUserTaskPage() is called with the cursor
+        TaskPage page = taskService.getUserTaskPage(userId, cursor, 2);
+        // Then the page has the task and no next cursor
+        assertThat(page.tasks()).hasSize(1);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void exportUserTasks_itShouldPassEachTaskToTheConsumerInOrder() {
+        // Given TaskRepository's streamAllByUserId() method returns 2 tasks
+        Long userId = 1L;
+        List<TaskDTO> tasks = List.of(
+                new TaskDTO(1L, userId, "task1", "description",
+                        LocalDate.now(), false, 0L),
+                new TaskDTO(2L, userId, "task2", "description",
+                        LocalDate.now(), false, 0L)
+        );
+        given(taskRepository.streamAllByUserId(userId))
+                .willReturn(tasks.stream());
+        // When exportUserTasks() is called
+        List<TaskDTO> exported = new ArrayList<>();
+        taskService.exportUserTasks(userId, exported::add);
+        // Then every task is consumed in order
+        assertThat(exported).containsExactlyElementsOf(tasks);
     }
 
     @Test
@@ -188,6 +319,7 @@ class TaskServiceTest {
         String oldTitle = "old title";
         String updatedTitle = "updated title";
         Task task = new Task(oldTitle, "description", LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 updatedTitle,
                 null,
@@ -206,6 +338,7 @@ class TaskServiceTest {
         // Given a task and a payload with a title
         String title = "title";
         Task task = new Task(title, "description", LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 title,
                 null,
@@ -223,6 +356,7 @@ class TaskServiceTest {
         // Given a task and a payload with no title
         String title = "title";
         Task task = new Task(title, "description", LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -241,6 +375,7 @@ class TaskServiceTest {
         String oldDescription = "old description";
         String updatedDescription = "updated description";
         Task task = new Task("task", oldDescription, LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 updatedDescription,
@@ -260,6 +395,7 @@ class TaskServiceTest {
         // Given a task and a payload with the same description
         String description = "description";
         Task task = new Task("task", description, LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 description,
@@ -277,6 +413,7 @@ class TaskServiceTest {
         // Given a task and a payload with no description
         String description = "description";
         Task task = new Task("task", description, LocalDate.now(), false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -295,6 +432,7 @@ class TaskServiceTest {
         LocalDate oldDueDate = LocalDate.of(2023, Month.AUGUST, 7);
         LocalDate updatedDueDate = LocalDate.of(2023, Month.AUGUST, 8);
         Task task = new Task("task", "", oldDueDate, false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -313,6 +451,7 @@ class TaskServiceTest {
         // Given a task and a payload with the same due date
         LocalDate dueDate = LocalDate.of(2023, Month.AUGUST, 7);
         Task task = new Task("task", "", dueDate, false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -330,6 +469,7 @@ class TaskServiceTest {
         // Given a task and a payload with the same due date
         LocalDate dueDate = LocalDate.of(2023, Month.AUGUST, 7);
         Task task = new Task("task", "", dueDate, false);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -349,6 +489,7 @@ class TaskServiceTest {
         boolean updatedIsComplete = true;
         LocalDate updatedDueDate = LocalDate.of(2023, 8, 8);
         Task task = new Task("task", "", LocalDate.now(), oldIsComplete);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -368,6 +509,7 @@ class TaskServiceTest {
         boolean isComplete = false;
         LocalDate updatedDueDate = LocalDate.of(2023, 8, 8);
         Task task = new Task("task", "", LocalDate.now(), isComplete);
+        task.setUser(new User());
         UpdateTaskPayload payload = new UpdateTaskPayload(
                 null,
                 null,
@@ -381,24 +523,186 @@ class TaskServiceTest {
     }
 
     @Test
-    void deleteTask_itShouldCallTheRepositoryDeleteByIdMethod() {
-        // When deleteTask() is called
-        Long id = 1L;
-        taskService.deleteTask(id);
-        // Then TaskRepository's deleteById() method should be called
-        verify(taskRepository).deleteById(id);
+    void updateTask_itShouldNotUpdateIsCompleteIfItIsNotInThePayload() {
+        // Given a complete task and a payload without isComplete
+        Task task = new Task("task", "", LocalDate.now(), true);
+        task.setUser(new User());
+        UpdateTaskPayload payload = new UpdateTaskPayload(
+                "new title",
+                null,
+                null,
+                null
+        );
+        // When updateTask() is called with the task and payload
+        Task updatedTask = taskService.updateTask(task, payload);
+        // Then the task is still complete
+        assertThat(updatedTask.isComplete()).isTrue();
     }
 
     @Test
-    void deleteTask_itShouldCallTheRepositoryDeleteByIdMethodWithTheGivenId() {
-        // When deleteTask() is called with an ID
-        Long id = 1L;
-        taskService.deleteTask(id);
-        // Then TaskRepository's deleteById() method should be called with the
-        // same ID
-        ArgumentCaptor<Long> argumentCaptor = ArgumentCaptor.forClass(Long.class);
-        verify(taskRepository).deleteById(argumentCaptor.capture());
-        Long capturedId = argumentCaptor.getValue();
-        assertThat(capturedId).isEqualTo(id);
+    void updateTask_itShouldNotChangeTheTaskListVersionIfNothingChanged() {
+        // Given a task and a payload with the same data
+        Task task = new Task("task", "", LocalDate.now(), false);
+        task.setUser(new User());
+        UpdateTaskPayload payload = new UpdateTaskPayload(
+                "task",
+                null,
+                null,
+                false
+        );
+        // When updateTask() is called with the task and payload
+        taskService.updateTask(task, payload);
+        // Then the task list version isn't incremented
+        verify(taskListVersionRepository, never()).incrementVersion(any());
+    }
+
+    @Test
+    void updateTask_itShouldPublishAnEventWithTheTaskBeforeAndAfterTheChange() {
+        // Given a task that belongs to the user with ID 2
+        User user = new User();
+        user.setId(2L);
+        Task task = new Task("old title", "", LocalDate.now(), false);
+        task.setId(1L);
+        task.setUser(user);
+        UpdateTaskPayload payload = new UpdateTaskPayload(
+                "new title",
+                null,
+                null,
+                null
+        );
+        // When updateTask() is called with a new title
+        taskService.updateTask(task, payload);
+        // Then an event is published with the old and new titles
+        ArgumentCaptor<TaskChangedEvent> argumentCaptor = ArgumentCaptor
+                .forClass(TaskChangedEvent.class);
+        verify(eventPublisher).publishEvent(argumentCaptor.capture());
+        TaskChangedEvent event = argumentCaptor.getValue();
+        assertThat(event.userId()).isEqualTo(2L);
+        assertThat(event.previous().title()).isEqualTo("old title");
+        assertThat(event.current().title()).isEqualTo("new title");
+    }
+
+    @Test
+    void updateTask_itShouldNotPublishAnEventIfNothingChanged() {
+        // Given a task and a payload with the same data
+        Task task = new Task("task", "", LocalDate.now(), false);
+        task.setUser(new User());
+        UpdateTaskPayload payload = new UpdateTaskPayload(
+                "task",
+                null,
+                null,
+                false
+        );
+        // When updateTask() is called with the task and payload
+        taskService.updateTask(task, payload);
+        // Then no event is published
+        verify(eventPublisher, never())
+                .publishEvent(any(TaskChangedEvent.class));
+    }
+
+    @Test
+    void applyBatch_itShouldUpdateTheTasksThatBelongToTheUser() {
+        // Given a task that belongs to the user
+        User user = new User();
+        user.setId(1L);
+        Task task = new Task("old title", "", LocalDate.now(), false);
+        task.setId(10L);
+        task.setUser(user);
+        given(taskRepository.findAllById(any())).willReturn(List.of(task));
+        BatchTaskPayload payload = new BatchTaskPayload(null, List.of(
+                new BatchUpdatePayload(10L, "new title", null, null, false)
+        ), null);
+        // When applyBatch() is called with an update for the task
+        BatchTaskResponse response = taskService.applyBatch(payload, user);
+        // Then the task is updated
+        assertThat(task.getTitle()).isEqualTo("new title");
+        assertThat(response.updated()).extracting(BatchItemResult::status)
+                .containsExactly(200);
+    }
+
+    @Test
+    void applyBatch_itShouldNotChangeTasksThatDoNotExistOrBelongToAnotherUser() {
+        // Given a task that belongs to another user
+        User user = new User();
+        user.setId(1L);
+        User otherUser = new User();
+        otherUser.setId(2L);
+        Task task = new Task("title", "", LocalDate.now(), false);
+        task.setId(10L);
+        task.setUser(otherUser);
+        given(taskRepository.findAllById(any())).willReturn(List.of(task));
+        BatchTaskPayload payload = new BatchTaskPayload(null, List.of(
+                new BatchUpdatePayload(10L, "new title", null, null, false)
+        ), List.of(11L));
+        // When applyBatch() is called with an update for the task and a
+        // delete for a task that doesn't exist
+        BatchTaskResponse response = taskService.applyBatch(payload, user);
+        // Then nothing is changed and each change has an error status
+        assertThat(task.getTitle()).isEqualTo("title");
+        assertThat(response.updated()).extracting(BatchItemResult::status)
+                .containsExactly(403);
+        assertThat(response.deleted()).extracting(BatchItemResult::status)
+                .containsExactly(404);
+        verify(taskRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void applyBatch_itShouldDeleteTheTasksThatBelongToTheUserInOneBatch() {
+        // Given 2 tasks that belong to the user
+        User user = new User();
+        user.setId(1L);
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 10; id < 12; id++) {
+            Task task = new Task("task", "", LocalDate.now(), false);
+            task.setId(id);
+            task.setUser(user);
+            tasks.add(task);
+        }
+        given(taskRepository.findAllById(any())).willReturn(tasks);
+        BatchTaskPayload payload = new BatchTaskPayload(null, null,
+                List.of(10L, 11L));
+        // When applyBatch() is called with deletes for both tasks
+        taskService.applyBatch(payload, user);
+        // Then both tasks are deleted with one call to the repository
+        verify(taskRepository).deleteAll(tasksCaptor.capture());
+        assertThat(tasksCaptor.getValue()).containsExactlyElementsOf(tasks);
+    }
+
+    @Test
+    void deleteUserTask_itShouldDeleteTheTaskIfItBelongsToTheUser() {
+        // Given a task that belongs to the user with ID 2
+        User user = new User();
+        user.setId(2L);
+        Task task = new Task("task", "", LocalDate.now(), false);
+        task.setId(1L);
+        task.setUser(user);
+        given(taskRepository.findById(1L)).willReturn(Optional.of(task));
+        // When deleteUserTask() is called
+        boolean deleted = taskService.deleteUserTask(1L, 2L);
+        // Then the task is deleted, the result is true and an event is
+        // published for the deleted task
+        assertThat(deleted).isTrue();
+        verify(taskRepository).delete(task);
+        verify(eventPublisher).publishEvent(
+                new TaskChangedEvent(2L, task.toDTO(), null)
+        );
+    }
+
+    @Test
+    void deleteUserTask_itShouldReturnFalseIfTheTaskBelongsToAnotherUser() {
+        // Given a task that belongs to the user with ID 3
+        User otherUser = new User();
+        otherUser.setId(3L);
+        Task task = new Task("task", "", LocalDate.now(), false);
+        task.setId(1L);
+        task.setUser(otherUser);
+        given(taskRepository.findById(1L)).willReturn(Optional.of(task));
+        // When deleteUserTask() is called for the user with ID 2
+        boolean deleted = taskService.deleteUserTask(1L, 2L);
+        // Then the result is false, nothing is deleted and the task list
+        // version isn't incremented
+        assertThat(deleted).isFalse();
+        verify(taskRepository, never()).delete(any());
+        verify(taskListVersionRepository, never()).incrementVersion(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.example.todo.task;
+
+import com.example.todo.config.CacheConfig;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TaskStatsCacheTest {
+    @Autowired
+    private TaskStatsCache taskStatsCache;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // A new user for each test, so their counters are never already
+        // loaded
+        user = userRepository.save(new User("test",
+                UUID.randomUUID() + "@gmail.com", "password"));
+        taskService.createTaskListVersion(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.USER_TASKS_CACHE).clear();
+    }
+
+    private Task saveTask(LocalDate dueDate, boolean isComplete) {
+        Task task = new Task("task", "", dueDate, isComplete);
+        task.setUser(user);
+        return taskRepository.save(task);
+    }
+
+    @Test
+    void getStats_itShouldFollowTheChangesMadeAfterTheStatsAreLoaded() {
+        // Given the stats of a user with an overdue task have been loaded
+        LocalDate today = LocalDate.now();
+        Task overdue = saveTask(today.minusDays(1), false);
+        assertThat(taskStatsCache.getStats(user.getId()))
+                .isEqualTo(new TaskStats(1, 0, 1, 1, 0));
+        // When a task due today is created, the overdue task is completed
+        // and then deleted
+        taskService.createTask(new NewTaskPayload("task", "", today), user);
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> taskService.updateTask(
+                        taskService.getUserTask(overdue.getId(), user.getId())
+                                .orElseThrow(),
+                        new UpdateTaskPayload(null, null, null, true)
+                ));
+        TaskStats afterCompleting = taskStatsCache.getStats(user.getId());
+        taskService.deleteUserTask(overdue.getId(), user.getId());
+        // Then the stats include each change
+        assertThat(afterCompleting).isEqualTo(new TaskStats(2, 1, 1, 0, 1));
+        assertThat(taskStatsCache.getStats(user.getId()))
+                .isEqualTo(new TaskStats(1, 0, 1, 0, 1));
+    }
+
+    @Test
+    void reconcile_itShouldReplaceStatsThatHaveDriftedFromTheDatabase() {
+        // Given loaded stats which miss a task saved without an event
+        LocalDate today = LocalDate.now();
+        saveTask(today, false);
+        taskStatsCache.getStats(user.getId());
+        saveTask(today, true);
+        assertThat(taskStatsCache.getStats(user.getId()).total())
+                .isEqualTo(1);
+        // When the stats are reconciled
+        taskStatsCache.reconcile();
+        // Then they match the database again
+        assertThat(taskStatsCache.getStats(user.getId()))
+                .isEqualTo(new TaskStats(2, 1, 1, 0, 1));
+    }
+}
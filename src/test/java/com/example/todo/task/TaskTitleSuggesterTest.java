@@ -0,0 +1,92 @@
+package com.example.todo.task;
+
+import com.example.todo.config.CacheConfig;
+import com.example.todo.user.User;
+import com.example.todo.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TaskTitleSuggesterTest {
+    @Autowired
+    private TaskTitleSuggester taskTitleSuggester;
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // A new user for each test, so their titles are never already loaded
+        user = userRepository.save(new User("test",
+                UUID.randomUUID() + "@gmail.com", "password"));
+        taskService.createTaskListVersion(user.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskRepository.deleteAll();
+        userRepository.deleteAll();
+        cacheManager.getCache(CacheConfig.USER_TASKS_CACHE).clear();
+    }
+
+    private Task createTask(String title) {
+        return taskService.createTask(
+                new NewTaskPayload(title, "", LocalDate.now()),
+                user
+        );
+    }
+
+    @Test
+    void suggest_itShouldSuggestTheTitlesOfTheUsersTasks() {
+        // Given tasks saved before the user's titles are loaded, one of them
+        // twice
+        for (String title : new String[] {"Buy bread", "Buy milk", "Buy milk"}) {
+            Task task = new Task(title, "", LocalDate.now(), false);
+            task.setUser(user);
+            taskRepository.save(task);
+        }
+        // When titles are suggested
+        // Then the titles are loaded from the tasks, the most used first
+        assertThat(taskTitleSuggester.suggest(user.getId(), "buy", 10))
+                .containsExactly("Buy milk", "Buy bread");
+    }
+
+    @Test
+    void suggest_itShouldSuggestTitlesCreatedOrRenamedAfterTheTitlesAreLoaded() {
+        // Given the user's titles have been loaded
+        Task task = createTask("Buy milk");
+        assertThat(taskTitleSuggester.suggest(user.getId(), "buy", 10))
+                .containsExactly("Buy milk");
+        // When a task is created and another is renamed
+        createTask("Book dentist");
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> taskService.updateTask(
+                        taskService.getUserTask(task.getId(), user.getId())
+                                .orElseThrow(),
+                        new UpdateTaskPayload("Buy bread", null, null, null)
+                ));
+        // Then their titles are suggested, the most recent first
+        assertThat(taskTitleSuggester.suggest(user.getId(), "b", 10))
+                .containsExactly("Buy bread", "Book dentist", "Buy milk");
+    }
+}
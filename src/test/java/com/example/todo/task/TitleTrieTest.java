@@ -0,0 +1,89 @@
+package com.example.todo.task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TitleTrieTest {
+    private static final long HALF_LIFE = Duration.ofHours(1).toMillis();
+
+    private TitleTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new TitleTrie(HALF_LIFE);
+    }
+
+    @Test
+    void suggest_itShouldReturnTheTitlesThatStartWithThePrefix() {
+        // Given titles which share the start of their first word
+        trie.add("Buy milk", 0);
+        trie.add("Buy bread", 0);
+        trie.add("Bus ticket", 0);
+        trie.add("Call mum", 0);
+        // When titles are suggested for prefixes ending at, inside and after
+        // the shared part
+        // Then only the titles starting with each prefix are suggested
+        assertThat(trie.suggest("bu", 10)).containsExactlyInAnyOrder(
+                "Buy milk", "Buy bread", "Bus ticket");
+        assertThat(trie.suggest("buy ", 10)).containsExactlyInAnyOrder(
+                "Buy milk", "Buy bread");
+        assertThat(trie.suggest("BUY M", 10)).containsExactly("Buy milk");
+        assertThat(trie.suggest("buz", 10)).isEmpty();
+        assertThat(trie.suggest("buy milk and eggs", 10)).isEmpty();
+    }
+
+    @Test
+    void add_itShouldKeepOneTitleForTitlesThatOnlyDifferInCaseOrSpacing() {
+        // Given a title added with different case and spacing
+        trie.add("buy milk", 0);
+        trie.add(" Buy  Milk ", 1);
+        // When titles are suggested
+        // Then it is suggested once, as it was last written
+        assertThat(trie.size()).isEqualTo(1);
+        assertThat(trie.suggest("buy", 10)).containsExactly("Buy Milk");
+    }
+
+    @Test
+    void suggest_itShouldRankTheMostUsedTitlesFirstAndLimitThem() {
+        // Given titles used a different number of times
+        trie.add("Pay rent", 0);
+        trie.add("Pay bill", 0);
+        trie.add("Pay bill", 0);
+        trie.add("Pay tax", 0);
+        trie.add("Pay tax", 0);
+        trie.add("Pay tax", 0);
+        // When 2 titles are suggested
+        // Then the 2 most used are suggested, most used first
+        assertThat(trie.suggest("pay", 2))
+                .containsExactly("Pay tax", "Pay bill");
+    }
+
+    @Test
+    void suggest_itShouldRankARecentTitleAboveAFrequentOneThatHasDecayed() {
+        // Given a title used 3 times, then 3 half-lives later another title
+        // used once
+        trie.add("Pay rent", 0);
+        trie.add("Pay rent", 0);
+        trie.add("Pay rent", 0);
+        trie.add("Pay bill", 3 * HALF_LIFE);
+        // When titles are suggested
+        // Then the recent title is first, as the other has decayed to 3/8
+        assertThat(trie.suggest("pay", 10))
+                .containsExactly("Pay bill", "Pay rent");
+    }
+
+    @Test
+    void suggest_itShouldRankTheMostRecentTitleFirstIfTheScoresAreEqual() {
+        // Given two titles used once at the same time
+        trie.add("Walk the dog", 0);
+        trie.add("Water plants", 0);
+        // When titles are suggested
+        // Then the one used last is first
+        assertThat(trie.suggest("wa", 10))
+                .containsExactly("Water plants", "Walk the dog");
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.todo.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UserCacheTest {
+    @Mock
+    private UserRepository userRepository;
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(userRepository, new MockEnvironment(),
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        reset(userRepository);
+    }
+
+    @Test
+    void findByEmail_itShouldOnlyCallTheRepositoryOnceForTheSameEmail() {
+        // Given a user with the email test@gmail.com exists
+        String email = "test@gmail.com";
+        User user = new User("test", email, "password");
+        given(userRepository.findByEmail(email)).willReturn(Optional.of(user));
+        // When findByEmail() is called twice
+        userCache.findByEmail(email);
+        Optional<User> cachedUser = userCache.findByEmail(email);
+        // Then the repository is only called once and the second lookup is a
+        // cache hit
+        verify(userRepository, times(1)).findByEmail(email);
+        assertThat(cachedUser).contains(user);
+        assertThat(userCache.getMissCount()).isEqualTo(1);
+        assertThat(userCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByEmail_itShouldNotCacheEmailsWithoutAUser() {
+        // Given a user with the email test@gmail.com doesn't exist
+        String email = "test@gmail.com";
+        given(userRepository.findByEmail(email)).willReturn(Optional.empty());
+        // When findByEmail() is called twice
+        userCache.findByEmail(email);
+        Optional<User> result = userCache.findByEmail(email);
+        // Then the repository is called both times
+        verify(userRepository, times(2)).findByEmail(email);
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void evict_itShouldRemoveTheUserFromTheCache() {
+        // Given a cached user
+        String email = "test@gmail.com";
+        User user = new User("test", email, "password");
+        user.setId(1L);
+        given(userRepository.findByEmail(email)).willReturn(Optional.of(user));
+        userCache.findByEmail(email);
+        // When evict() is called with the user
+        userCache.evict(user);
+        userCache.findByEmail(email);
+        // Then the next lookup goes to the repository
+        verify(userRepository, times(2)).findByEmail(email);
+    }
+
+    @Test
+    void evict_itShouldRemoveTheUserFromTheCacheIfTheirEmailHasChanged() {
+        // Given a cached user
+        String oldEmail = "old@gmail.com";
+        User user = new User("test", oldEmail, "password");
+        user.setId(1L);
+        given(userRepository.findByEmail(oldEmail))
+                .willReturn(Optional.of(user));
+        userCache.findByEmail(oldEmail);
+        // When the user's email changes and evict() is called
+        User updatedUser = new User("test", "new@gmail.com", "password");
+        updatedUser.setId(1L);
+        userCache.evict(updatedUser);
+        userCache.findByEmail(oldEmail);
+        // Then the entry for the old email is removed too
+        verify(userRepository, times(2)).findByEmail(oldEmail);
+    }
+
+    @Test
+    void evict_itShouldOnlyRemoveTheEntriesOfTheGivenUser() {
+        // Given two cached users
+        User user = new User("test", "test@gmail.com", "password");
+        user.setId(1L);
+        User otherUser = new User("other", "other@gmail.com", "password");
+        otherUser.setId(2L);
+        given(userRepository.findByEmail(user.getEmail()))
+                .willReturn(Optional.of(user));
+        given(userRepository.findByEmail(otherUser.getEmail()))
+                .willReturn(Optional.of(otherUser));
+        userCache.findByEmail(user.getEmail());
+        userCache.findByEmail(otherUser.getEmail());
+        // When evict() is called with one of them
+        userCache.evict(user);
+        userCache.findByEmail(otherUser.getEmail());
+        // Then the other user is still served from the cache
+        verify(userRepository, times(1)).findByEmail(otherUser.getEmail());
+        assertThat(userCache.getHitCount()).isEqualTo(1);
+    }
+}